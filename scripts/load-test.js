@@ -0,0 +1,76 @@
+// k6 load test for comparing platform and virtual request threads.
+//
+//   VIRTUAL_THREADS_ENABLED=false docker compose up -d --build app
+//   k6 run -e BASE_URL=http://localhost:8080 --summary-export=platform.json scripts/load-test.js
+//   VIRTUAL_THREADS_ENABLED=true docker compose up -d --build app
+//   k6 run -e BASE_URL=http://localhost:8080 --summary-export=virtual.json scripts/load-test.js
+//
+// Compare http_req_duration (p95/p99), http_reqs and the share of 503 responses per endpoint tag.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERNAME = __ENV.USERNAME || 'john_doe';
+const PASSWORD = __ENV.PASSWORD || 'password123';
+const FROM_USER_ID = Number(__ENV.FROM_USER_ID || 1);
+const TO_USER_ID = Number(__ENV.TO_USER_ID || 2);
+
+export const options = {
+    scenarios: {
+        user_listing: {
+            executor: 'ramping-vus',
+            exec: 'listUsers',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 200 },
+                { duration: '2m', target: 200 },
+                { duration: '15s', target: 0 },
+            ],
+        },
+        transfers: {
+            executor: 'ramping-vus',
+            exec: 'transfer',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 200 },
+                { duration: '2m', target: 200 },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        'http_req_duration{endpoint:users}': ['p(95)<500'],
+        'http_req_duration{endpoint:transfer}': ['p(95)<1000'],
+    },
+};
+
+export function setup() {
+    const response = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ username: USERNAME, password: PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(response, { 'logged in': (r) => r.status === 200 });
+    return { token: response.json('accessToken') };
+}
+
+function headers(token) {
+    return { Authorization: `Bearer ${token}`, 'Content-Type': 'application/json' };
+}
+
+export function listUsers(data) {
+    const response = http.get(`${BASE_URL}/api/users?page=0&size=20`,
+        { headers: headers(data.token), tags: { endpoint: 'users' } });
+    check(response, { 'users 200': (r) => r.status === 200 });
+}
+
+// Alternates direction so the two balances stay roughly constant for the whole run
+export function transfer(data) {
+    const forward = __ITER % 2 === 0;
+    const response = http.post(`${BASE_URL}/api/transactions/transfer`, JSON.stringify({
+        fromUserId: forward ? FROM_USER_ID : TO_USER_ID,
+        toUserId: forward ? TO_USER_ID : FROM_USER_ID,
+        amount: 0.01,
+        description: 'k6 load test',
+    }), { headers: headers(data.token), tags: { endpoint: 'transfer' } });
+    check(response, { 'transfer 201': (r) => r.status === 201 });
+}
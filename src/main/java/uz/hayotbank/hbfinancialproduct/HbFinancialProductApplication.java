@@ -2,8 +2,10 @@ package uz.hayotbank.hbfinancialproduct;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HbFinancialProductApplication {
 
     public static void main(String[] args) {
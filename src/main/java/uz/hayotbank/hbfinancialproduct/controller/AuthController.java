@@ -12,7 +12,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -23,13 +26,16 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
 
     public AuthController(AuthenticationManager authenticationManager,
                          UserService userService,
-                         JwtUtil jwtUtil) {
+                         JwtUtil jwtUtil,
+                         UserDetailsService userDetailsService) {
         this.authenticationManager = authenticationManager;
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
     }
 
     @PostMapping("/register")
@@ -41,17 +47,17 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<JwtResponseDto> authenticateUser(@Valid @RequestBody LoginRequestDto loginRequest) {
         try {
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getUsername(),
                             loginRequest.getPassword())
             );
 
-            String jwt = jwtUtil.generateJwtToken(loginRequest.getUsername());
-            String refreshToken = jwtUtil.generateRefreshToken(loginRequest.getUsername());
-
             User user = userService.findEntityByUsername(loginRequest.getUsername());
 
+            String jwt = jwtUtil.generateJwtToken(user.getId(), user.getUsername(), authentication.getAuthorities());
+            String refreshToken = jwtUtil.generateRefreshToken(loginRequest.getUsername());
+
             return ResponseEntity.ok(new JwtResponseDto(jwt, refreshToken, user.getId(),
                     user.getUsername(), user.getEmail(), user.getFullName()));
         } catch (AuthenticationException e) {
@@ -63,10 +69,13 @@ public class AuthController {
     public ResponseEntity<JwtResponseDto> refreshToken(@RequestParam String refreshToken) {
         if (jwtUtil.validateJwtToken(refreshToken)) {
             String username = jwtUtil.getUserNameFromJwtToken(refreshToken);
-            String newAccessToken = jwtUtil.generateJwtToken(username);
-            String newRefreshToken = jwtUtil.generateRefreshToken(username);
 
+            // Deleted users fail here, so a refresh never outlives a revocation
             User user = userService.findEntityByUsername(username);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+            String newAccessToken = jwtUtil.generateJwtToken(user.getId(), username, userDetails.getAuthorities());
+            String newRefreshToken = jwtUtil.generateRefreshToken(username);
 
             return ResponseEntity.ok(new JwtResponseDto(newAccessToken, newRefreshToken,
                     user.getId(), user.getUsername(), user.getEmail(), user.getFullName()));
@@ -1,41 +1,95 @@
 package uz.hayotbank.hbfinancialproduct.controller;
 
+import uz.hayotbank.hbfinancialproduct.dto.BulkTransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.dto.CursorPageDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
 import uz.hayotbank.hbfinancialproduct.exception.TransactionNotFoundException;
+import uz.hayotbank.hbfinancialproduct.service.PageTotal;
+import uz.hayotbank.hbfinancialproduct.service.TransactionExportService;
 import uz.hayotbank.hbfinancialproduct.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transactions")
 @CrossOrigin(origins = "*")
 public class TransactionController {
 
+    // Optional; a retry with the same key gets the first response back instead of posting again
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final ObjectMapper objectMapper;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionExportService transactionExportService,
+                                 ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.transactionExportService = transactionExportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
     public ResponseEntity<TransactionResponseDto> createTransaction(
-        @Valid @RequestBody TransactionCreateDto transactionCreateDto) {
-        TransactionResponseDto transaction = transactionService.createTransaction(transactionCreateDto);
+        @Valid @RequestBody TransactionCreateDto transactionCreateDto,
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (transactionService.isAsyncProcessing()) {
+            // Stored as PENDING; the client polls GET /api/transactions/{id} for the outcome
+            TransactionResponseDto transaction = transactionService.submitTransaction(transactionCreateDto, idempotencyKey);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/transactions/" + transaction.getId()))
+                .body(transaction);
+        }
+        TransactionResponseDto transaction = transactionService.createTransaction(transactionCreateDto, idempotencyKey);
         return new ResponseEntity<>(transaction, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkTransactionResponseDto> createTransactionsInBulk(
+        @RequestBody List<TransactionCreateDto> transactions) {
+        BulkTransactionResponseDto response = new BulkTransactionResponseDto(
+            transactionService.createTransactionsInBulk(transactions.iterator()));
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // One JSON object per line; the body is read while the chunks are processed, not buffered up front
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkTransactionResponseDto> createTransactionsInBulkFromStream(
+        InputStream body) throws IOException {
+        try (MappingIterator<JsonNode> lines = objectMapper
+                .readerFor(JsonNode.class)
+                .readValues(body)) {
+            BulkTransactionResponseDto response = new BulkTransactionResponseDto(
+                transactionService.createTransactionsInBulk(new NdjsonIterator(lines, objectMapper)));
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponseDto> getTransactionById(@PathVariable Long id) {
         TransactionResponseDto transaction = transactionService.getTransactionById(id)
@@ -44,87 +98,139 @@ public class TransactionController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<TransactionResponseDto>> getAllTransactions(
+    public ResponseEntity<Slice<TransactionResponseDto>> getAllTransactions(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size,
         @RequestParam(defaultValue = "createdAt") String sortBy,
-        @RequestParam(defaultValue = "desc") String sortDir) {
+        @RequestParam(defaultValue = "desc") String sortDir,
+        @RequestParam(defaultValue = "true") boolean withTotal,
+        @RequestParam(defaultValue = "false") boolean approximateTotal) {
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<TransactionResponseDto> transactions = transactionService.getAllTransactions(pageable);
+        Slice<TransactionResponseDto> transactions = transactionService.getAllTransactions(pageable,
+            PageTotal.of(withTotal, approximateTotal));
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsByUserId(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsByUserId(
         @PathVariable Long userId,
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size,
         @RequestParam(defaultValue = "createdAt") String sortBy,
-        @RequestParam(defaultValue = "desc") String sortDir) {
+        @RequestParam(defaultValue = "desc") String sortDir,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<TransactionResponseDto> transactions = transactionService.getTransactionsByUserId(userId, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsByUserId(userId, pageable, withTotal);
+        return new ResponseEntity<>(transactions, HttpStatus.OK);
+    }
+
+    // Keyset variants of the two listings above: constant cost per window, no total count
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<TransactionResponseDto>> scrollAllTransactions(
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "10") int size) {
+        CursorPageDto<TransactionResponseDto> transactions =
+            transactionService.scrollAllTransactions(after, checkWindowSize(size));
+        return new ResponseEntity<>(transactions, HttpStatus.OK);
+    }
+
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<CursorPageDto<TransactionResponseDto>> scrollTransactionsByUserId(
+        @PathVariable Long userId,
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = "10") int size) {
+        CursorPageDto<TransactionResponseDto> transactions =
+            transactionService.scrollTransactionsByUserId(userId, after, checkWindowSize(size));
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsByStatus(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsByStatus(
         @PathVariable TransactionStatus status,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<TransactionResponseDto> transactions = transactionService.getTransactionsByStatus(status, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsByStatus(status, pageable, withTotal);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @GetMapping("/user/{userId}/date-range")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsByUserIdAndDateRange(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsByUserIdAndDateRange(
         @PathVariable Long userId,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<TransactionResponseDto> transactions = transactionService
-            .getTransactionsByUserIdAndDateRange(userId, startDate, endDate, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsByUserIdAndDateRange(userId, startDate, endDate, pageable, withTotal);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
+    // Streams the whole (optionally date-limited) history straight from a DB cursor, oldest first
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+        @PathVariable Long userId,
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.of(format);
+        transactionExportService.checkExportable(userId);
+
+        StreamingResponseBody body = outputStream ->
+            transactionExportService.export(userId, startDate, endDate, exportFormat, outputStream);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions-" + userId + "." + exportFormat.getExtension())
+                .build().toString())
+            .body(body);
+    }
+
     @GetMapping("/type/{type}")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsByType(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsByType(
         @PathVariable TransactionType type,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<TransactionResponseDto> transactions = transactionService.getTransactionsByType(type, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsByType(type, pageable, withTotal);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @GetMapping("/user/{userId}/type/{type}")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsByUserIdAndType(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsByUserIdAndType(
         @PathVariable Long userId,
         @PathVariable TransactionType type,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<TransactionResponseDto> transactions = transactionService
-            .getTransactionsByUserIdAndType(userId, type, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsByUserIdAndType(userId, type, pageable, withTotal);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<Page<TransactionResponseDto>> getTransactionsWithFilters(
+    public ResponseEntity<Slice<TransactionResponseDto>> getTransactionsWithFilters(
         @RequestParam(required = false) Long userId,
         @RequestParam(required = false) TransactionType type,
         @RequestParam(required = false) TransactionStatus status,
@@ -133,21 +239,63 @@ public class TransactionController {
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size,
         @RequestParam(defaultValue = "createdAt") String sortBy,
-        @RequestParam(defaultValue = "desc") String sortDir) {
+        @RequestParam(defaultValue = "desc") String sortDir,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<TransactionResponseDto> transactions = transactionService
-            .getTransactionsWithFilters(userId, type, status, startDate, endDate, pageable);
+        Slice<TransactionResponseDto> transactions = transactionService
+            .getTransactionsWithFilters(userId, type, status, startDate, endDate, pageable, withTotal);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
     @PostMapping("/transfer")
     public ResponseEntity<TransactionResponseDto> transferMoney(
-        @Valid @RequestBody TransferDto transferDto) {
-        TransactionResponseDto transaction = transactionService.transferMoney(transferDto);
+        @Valid @RequestBody TransferDto transferDto,
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        TransactionResponseDto transaction = transactionService.transferMoney(transferDto, idempotencyKey);
         return new ResponseEntity<>(transaction, HttpStatus.CREATED);
     }
-}
\ No newline at end of file
+
+    private static int checkWindowSize(int size) {
+        if (size < 1 || size > 1000) {
+            throw new IllegalArgumentException("size must be between 1 and 1000");
+        }
+        return size;
+    }
+
+    /**
+     * Reports a malformed line as {@link IllegalArgumentException}, which ends the bulk run with a failed item.
+     * A {@code null} line is passed on as a null item and fails on its own.
+     */
+    private static class NdjsonIterator implements Iterator<TransactionCreateDto> {
+
+        private final MappingIterator<JsonNode> lines;
+        private final ObjectMapper objectMapper;
+
+        NdjsonIterator(MappingIterator<JsonNode> lines, ObjectMapper objectMapper) {
+            this.lines = lines;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return lines.hasNextValue();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed NDJSON: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public TransactionCreateDto next() {
+            try {
+                return objectMapper.treeToValue(lines.nextValue(), TransactionCreateDto.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed NDJSON: " + e.getMessage(), e);
+            }
+        }
+    }
+}
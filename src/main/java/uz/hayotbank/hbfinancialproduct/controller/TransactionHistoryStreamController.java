@@ -0,0 +1,65 @@
+package uz.hayotbank.hbfinancialproduct.controller;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.service.TransactionHistoryStreamService;
+import uz.hayotbank.hbfinancialproduct.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming variants of the history endpoints, served from the R2DBC read path.
+ * Each transaction is written as one NDJSON line as soon as it arrives from the database;
+ * the request thread is released while the stream is in progress.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "application.r2dbc.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionHistoryStreamController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final TransactionHistoryStreamService transactionHistoryStreamService;
+    private final UserService userService;
+
+    public TransactionHistoryStreamController(TransactionHistoryStreamService transactionHistoryStreamService,
+                                              UserService userService) {
+        this.transactionHistoryStreamService = transactionHistoryStreamService;
+        this.userService = userService;
+    }
+
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TransactionResponseDto> streamTransactionsByUserId(
+        @PathVariable Long userId,
+        @RequestParam(defaultValue = "1000") int limit) {
+        // Checked before the stream starts, while a 400 or 404 can still be sent instead of a broken stream
+        checkLimit(limit);
+        userService.findEntityById(userId);
+        return transactionHistoryStreamService.streamByUserId(userId, limit);
+    }
+
+    @GetMapping(value = "/filter/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TransactionResponseDto> streamTransactionsWithFilters(
+        @RequestParam(required = false) Long userId,
+        @RequestParam(required = false) TransactionType type,
+        @RequestParam(required = false) TransactionStatus status,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @RequestParam(defaultValue = "1000") int limit) {
+        return transactionHistoryStreamService.streamWithFilters(
+            userId, type, status, startDate, endDate, checkLimit(limit));
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+}
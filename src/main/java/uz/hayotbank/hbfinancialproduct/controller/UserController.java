@@ -1,17 +1,21 @@
 package uz.hayotbank.hbfinancialproduct.controller;
 
+import uz.hayotbank.hbfinancialproduct.dto.BalanceDto;
 import uz.hayotbank.hbfinancialproduct.dto.UserCreateDto;
 import uz.hayotbank.hbfinancialproduct.dto.UserResponseDto;
 import uz.hayotbank.hbfinancialproduct.exception.UserNotFoundException;
+import uz.hayotbank.hbfinancialproduct.service.PageTotal;
 import uz.hayotbank.hbfinancialproduct.service.UserService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/users")
@@ -37,6 +41,17 @@ public class UserController {
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
 
+    // Without asOf the stored running balance is returned; with it the balance is rebuilt from the ledger
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<BalanceDto> getBalance(
+        @PathVariable Long id,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        BalanceDto balance = asOf == null
+            ? new BalanceDto(id, LocalDateTime.now(), userService.getBalance(id))
+            : new BalanceDto(id, asOf, userService.balanceAsOf(id, asOf));
+        return new ResponseEntity<>(balance, HttpStatus.OK);
+    }
+
     @GetMapping("/username/{username}")
     public ResponseEntity<UserResponseDto> getUserByUsername(@PathVariable String username) {
         UserResponseDto user = userService.getUserByUsername(username)
@@ -45,28 +60,31 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<UserResponseDto>> getAllUsers(
+    public ResponseEntity<Slice<UserResponseDto>> getAllUsers(
         @RequestParam(defaultValue = "0") int page,
         @RequestParam(defaultValue = "10") int size,
         @RequestParam(defaultValue = "id") String sortBy,
-        @RequestParam(defaultValue = "asc") String sortDir) {
+        @RequestParam(defaultValue = "asc") String sortDir,
+        @RequestParam(defaultValue = "true") boolean withTotal,
+        @RequestParam(defaultValue = "false") boolean approximateTotal) {
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<UserResponseDto> users = userService.getAllUsers(pageable);
+        Slice<UserResponseDto> users = userService.getAllUsers(pageable, PageTotal.of(withTotal, approximateTotal));
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<UserResponseDto>> searchUsers(
+    public ResponseEntity<Slice<UserResponseDto>> searchUsers(
         @RequestParam String searchTerm,
         @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
+        @RequestParam(defaultValue = "10") int size,
+        @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserResponseDto> users = userService.searchUsers(searchTerm, pageable);
+        Slice<UserResponseDto> users = userService.searchUsers(searchTerm, pageable, withTotal);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
 
@@ -0,0 +1,29 @@
+package uz.hayotbank.hbfinancialproduct.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class BalanceDto {
+    private Long userId;
+    private LocalDateTime asOf;
+    private BigDecimal balance;
+
+    // Constructors
+    public BalanceDto() {}
+
+    public BalanceDto(Long userId, LocalDateTime asOf, BigDecimal balance) {
+        this.userId = userId;
+        this.asOf = asOf;
+        this.balance = balance;
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getAsOf() { return asOf; }
+    public void setAsOf(LocalDateTime asOf) { this.asOf = asOf; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
@@ -0,0 +1,36 @@
+package uz.hayotbank.hbfinancialproduct.dto;
+
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import java.util.List;
+
+public class BulkTransactionResponseDto {
+    private int total;
+    private int completed;
+    private int failed;
+    private List<BulkTransactionResultDto> results;
+
+    // Constructors
+    public BulkTransactionResponseDto() {}
+
+    public BulkTransactionResponseDto(List<BulkTransactionResultDto> results) {
+        this.results = results;
+        this.total = results.size();
+        this.completed = (int) results.stream()
+            .filter(result -> result.getStatus() == TransactionStatus.COMPLETED)
+            .count();
+        this.failed = total - completed;
+    }
+
+    // Getters and Setters
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getCompleted() { return completed; }
+    public void setCompleted(int completed) { this.completed = completed; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<BulkTransactionResultDto> getResults() { return results; }
+    public void setResults(List<BulkTransactionResultDto> results) { this.results = results; }
+}
@@ -0,0 +1,41 @@
+package uz.hayotbank.hbfinancialproduct.dto;
+
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+
+public class BulkTransactionResultDto {
+    private int index;
+    private TransactionStatus status;
+    private TransactionResponseDto transaction;
+    private String error;
+
+    // Constructors
+    public BulkTransactionResultDto() {}
+
+    public BulkTransactionResultDto(int index, TransactionStatus status, TransactionResponseDto transaction, String error) {
+        this.index = index;
+        this.status = status;
+        this.transaction = transaction;
+        this.error = error;
+    }
+
+    public static BulkTransactionResultDto completed(int index, TransactionResponseDto transaction) {
+        return new BulkTransactionResultDto(index, TransactionStatus.COMPLETED, transaction, null);
+    }
+
+    public static BulkTransactionResultDto failed(int index, String error) {
+        return new BulkTransactionResultDto(index, TransactionStatus.FAILED, null, error);
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public TransactionStatus getStatus() { return status; }
+    public void setStatus(TransactionStatus status) { this.status = status; }
+
+    public TransactionResponseDto getTransaction() { return transaction; }
+    public void setTransaction(TransactionResponseDto transaction) { this.transaction = transaction; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -21,6 +21,23 @@ public class TransactionResponseDto {
     // Constructors
     public TransactionResponseDto() {}
 
+    // Used by JPQL constructor expressions, which read DTOs without loading entities
+    public TransactionResponseDto(Long id, Long userId, String userName, Long toUserId, String toUserName,
+                                  BigDecimal amount, TransactionType type, String description,
+                                  TransactionStatus status, LocalDateTime createdAt, LocalDateTime processedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.userName = userName;
+        this.toUserId = toUserId;
+        this.toUserName = toUserName;
+        this.amount = amount;
+        this.type = type;
+        this.description = description;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.processedAt = processedAt;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,37 @@
+package uz.hayotbank.hbfinancialproduct.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of a user as of a point in time, i.e. the sum of the user's ledger postings up to and including
+ * {@code asOf}. Rows are inserted in bulk by the snapshot job and never change.
+ */
+@Entity
+@Immutable
+@Table(name = "balance_snapshots")
+public class BalanceSnapshot {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    // Constructors
+    public BalanceSnapshot() {}
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public LocalDateTime getAsOf() { return asOf; }
+    public BigDecimal getBalance() { return balance; }
+}
@@ -0,0 +1,41 @@
+package uz.hayotbank.hbfinancialproduct.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Response of a transaction created with an Idempotency-Key. Rows are written with a native insert
+ * in the posting's DB transaction and never change afterwards.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    // SHA-256 of the operation and the request body, tells a replay from a reused key
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    // TransactionResponseDto as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public IdempotencyKey() {}
+
+    // Getters
+    public String getKey() { return key; }
+    public String getRequestHash() { return requestHash; }
+    public Long getTransactionId() { return transactionId; }
+    public String getResponse() { return response; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,53 @@
+package uz.hayotbank.hbfinancialproduct.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Signed posting of a completed transaction on one account. Append-only: entries are never updated,
+ * a correction is a new transaction with its own postings.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries")
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_id_seq")
+    @SequenceGenerator(name = "ledger_entries_id_seq", sequenceName = "ledger_entries_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", nullable = false)
+    private Transaction transaction;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private User account;
+
+    // Positive when money comes into the account, negative when it leaves
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    // Set by the database to the start of the inserting transaction, see V19; null until the entry is reloaded
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public LedgerEntry() {}
+
+    public LedgerEntry(Transaction transaction, User account, BigDecimal amount) {
+        this.transaction = transaction;
+        this.account = account;
+        this.amount = amount;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Transaction getTransaction() { return transaction; }
+    public User getAccount() { return account; }
+    public BigDecimal getAmount() { return amount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -10,8 +10,10 @@ import java.time.LocalDateTime;
 @Table(name = "transactions")
 public class Transaction {
 
+    // Sequence ids allocated in blocks (pooled-lo) keep Hibernate's JDBC insert batching enabled
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,6 +46,13 @@ public class Transaction {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
 
+    // Failed attempts of the asynchronous processor; a PENDING row is not claimed before retryAt
+    @Column(name = "processing_attempts", nullable = false)
+    private int processingAttempts;
+
+    @Column(name = "retry_at")
+    private LocalDateTime retryAt;
+
     // Constructors
     public Transaction() {}
 
@@ -81,4 +90,10 @@ public class Transaction {
 
     public LocalDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public int getProcessingAttempts() { return processingAttempts; }
+    public void setProcessingAttempts(int processingAttempts) { this.processingAttempts = processingAttempts; }
+
+    public LocalDateTime getRetryAt() { return retryAt; }
+    public void setRetryAt(LocalDateTime retryAt) { this.retryAt = retryAt; }
 }
\ No newline at end of file
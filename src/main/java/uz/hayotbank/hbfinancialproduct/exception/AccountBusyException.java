@@ -0,0 +1,11 @@
+package uz.hayotbank.hbfinancialproduct.exception;
+
+public class AccountBusyException extends RuntimeException {
+    public AccountBusyException(String message) {
+        super(message);
+    }
+
+    public AccountBusyException(Long accountId) {
+        super("Account is busy, please retry: " + accountId);
+    }
+}
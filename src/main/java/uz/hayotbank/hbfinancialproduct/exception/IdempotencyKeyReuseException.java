@@ -0,0 +1,7 @@
+package uz.hayotbank.hbfinancialproduct.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super("Idempotency-Key was already used for a different request: " + idempotencyKey);
+    }
+}
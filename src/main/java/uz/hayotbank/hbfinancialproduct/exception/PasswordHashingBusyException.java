@@ -0,0 +1,7 @@
+package uz.hayotbank.hbfinancialproduct.exception;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("Too many login attempts in progress, please retry");
+    }
+}
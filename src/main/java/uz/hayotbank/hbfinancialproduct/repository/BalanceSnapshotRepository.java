@@ -0,0 +1,77 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    /**
+     * Nearest snapshot of the user at or before {@code asOf}; a backward scan of the (user_id, as_of) index.
+     */
+    Optional<BalanceSnapshot> findFirstByUserIdAndAsOfLessThanEqualOrderByAsOfDesc(Long userId, LocalDateTime asOf);
+
+    @Query("SELECT MAX(s.asOf) FROM BalanceSnapshot s")
+    LocalDateTime findLatestAsOf();
+
+    /**
+     * Latest point in time up to which every posting has committed: just before the start of the oldest
+     * transaction still open in this database, or of the calling one. Postings are stamped with the start
+     * of their transaction, so none that is still to commit can be stamped at or before the returned time.
+     * Relies on all writers connecting as the application role, whose sessions pg_stat_activity shows.
+     */
+    @Query(value = "SELECT LEAST(LOCALTIMESTAMP, MIN(a.xact_start)::timestamp) - INTERVAL '1 microsecond' " +
+                   "FROM pg_stat_activity a " +
+                   "WHERE a.datname = current_database() AND a.backend_type = 'client backend'",
+           nativeQuery = true)
+    LocalDateTime findCommittedUntil();
+
+    /**
+     * Snapshots as of {@code asOf} every account that has postings in ({@code since}, {@code asOf}]:
+     * its last snapshot up to {@code since} plus those postings. {@code since} must be the {@code asOf}
+     * of the previous run, which left every account without newer postings with a current snapshot.
+     *
+     * @return the number of snapshots written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO balance_snapshots (user_id, as_of, balance) " +
+                   "SELECT d.account_id, :asOf, COALESCE(last.balance, 0) + d.delta " +
+                   "FROM (SELECT e.account_id, SUM(e.amount) AS delta FROM ledger_entries e " +
+                   "      WHERE e.created_at > :since AND e.created_at <= :asOf GROUP BY e.account_id) d " +
+                   "LEFT JOIN LATERAL (SELECT s.balance FROM balance_snapshots s " +
+                   "      WHERE s.user_id = d.account_id AND s.as_of <= :since " +
+                   "      ORDER BY s.as_of DESC LIMIT 1) last ON TRUE",
+           nativeQuery = true)
+    int insertSnapshots(@Param("since") LocalDateTime since, @Param("asOf") LocalDateTime asOf);
+
+    /**
+     * Latest snapshots of the given accounts that no longer match the sum of the account's postings up to
+     * their {@code asOf}, i.e. that missed a posting or were written wrong. Later snapshots carry the balance
+     * forward, so checking the latest one covers the whole history of the account.
+     */
+    @Query(value = "SELECT s.user_id AS accountId, s.as_of AS asOf, s.balance AS snapshotBalance, " +
+                   "       l.balance AS ledgerBalance " +
+                   "FROM (SELECT DISTINCT ON (user_id) user_id, as_of, balance FROM balance_snapshots " +
+                   "      WHERE user_id IN :accountIds ORDER BY user_id, as_of DESC) s " +
+                   "CROSS JOIN LATERAL (SELECT COALESCE(SUM(e.amount), 0) AS balance FROM ledger_entries e " +
+                   "      WHERE e.account_id = s.user_id AND e.created_at <= s.as_of) l " +
+                   "WHERE l.balance <> s.balance",
+           nativeQuery = true)
+    List<SnapshotDrift> findDrifted(@Param("accountIds") Collection<Long> accountIds);
+
+    interface SnapshotDrift {
+        Long getAccountId();
+        LocalDateTime getAsOf();
+        BigDecimal getSnapshotBalance();
+        BigDecimal getLedgerBalance();
+    }
+}
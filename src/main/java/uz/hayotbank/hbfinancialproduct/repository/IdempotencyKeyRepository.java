@@ -0,0 +1,24 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // A plain INSERT rather than save(): save() would SELECT first and could not detect a concurrent
+    // duplicate. On a key another transaction has just inserted the INSERT waits for it and then fails
+    // with a unique violation. The flush writes the transaction row first, the key references it
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, transaction_id, response, created_at) " +
+                   "VALUES (:key, :requestHash, :transactionId, :response, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    void insert(@Param("key") String key,
+                @Param("requestHash") String requestHash,
+                @Param("transactionId") Long transactionId,
+                @Param("response") String response);
+}
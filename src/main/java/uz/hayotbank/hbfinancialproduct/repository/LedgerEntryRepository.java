@@ -0,0 +1,50 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Balance of the account: the sum of its postings, an index-only scan of (account_id, created_at).
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.account.id = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * Grouped variant of {@link #sumByAccountId(Long)} for many accounts in one round trip.
+     * Accounts without postings are absent from the result.
+     */
+    @Query("SELECT e.account.id AS accountId, SUM(e.amount) AS balance FROM LedgerEntry e " +
+           "WHERE e.account.id IN :accountIds GROUP BY e.account.id")
+    List<AccountBalance> sumByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Net change of the account's balance over ({@code from}, {@code to}].
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+           "WHERE e.account.id = :accountId AND e.createdAt > :from AND e.createdAt <= :to")
+    BigDecimal sumByAccountIdBetween(@Param("accountId") Long accountId,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    /**
+     * Balance of the account as of {@code to}, summed over its whole history up to then.
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+           "WHERE e.account.id = :accountId AND e.createdAt <= :to")
+    BigDecimal sumByAccountIdUntil(@Param("accountId") Long accountId, @Param("to") LocalDateTime to);
+
+    interface AccountBalance {
+        Long getAccountId();
+        BigDecimal getBalance();
+    }
+}
@@ -0,0 +1,30 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Filtered transaction listing whose SQL contains only the filters that were actually given.
+ */
+public interface TransactionFilterRepository {
+
+    /**
+     * Every argument except {@code pageable} may be null, meaning "no filter on this column".
+     * Returns a Page when {@code withTotal} is set, otherwise a Slice without a COUNT query.
+     */
+    Slice<TransactionResponseDto> findWithFilters(Long userId, TransactionType type, TransactionStatus status,
+                                                  LocalDateTime startDate, LocalDateTime endDate,
+                                                  Pageable pageable, boolean withTotal);
+
+    /**
+     * Forward-only stream of the user's transactions, oldest first, read as DTOs so the persistence
+     * context stays empty. Either date may be null. Must be consumed inside a transaction;
+     * rows are fetched {@code 1000} at a time.
+     */
+    Stream<TransactionResponseDto> streamForExport(Long userId, LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,128 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.Transaction;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Criteria implementation of {@link TransactionFilterRepository}.
+ *
+ * A single JPQL query with {@code (:x IS NULL OR col = :x)} for every filter gets one generic plan
+ * from Postgres, which cannot use an index for whichever filters happen to be set. Building the
+ * predicates per call gives each filter combination its own statement, and with it its own index.
+ */
+class TransactionFilterRepositoryImpl implements TransactionFilterRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<TransactionResponseDto> findWithFilters(Long userId, TransactionType type, TransactionStatus status,
+                                                         LocalDateTime startDate, LocalDateTime endDate,
+                                                         Pageable pageable, boolean withTotal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionResponseDto> query = cb.createQuery(TransactionResponseDto.class);
+        Root<Transaction> transaction = selectDto(cb, query);
+        query.where(predicates(cb, transaction, userId, type, status, startDate, endDate))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), transaction, cb));
+
+        TypedQuery<TransactionResponseDto> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            List<TransactionResponseDto> content = typedQuery.getResultList();
+            return withTotal ? new PageImpl<>(content) : new SliceImpl<>(content);
+        }
+
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        if (withTotal) {
+            List<TransactionResponseDto> content = typedQuery.setMaxResults(pageable.getPageSize()).getResultList();
+            return new PageImpl<>(content, pageable, count(userId, type, status, startDate, endDate));
+        }
+
+        // One extra row tells whether a next page exists
+        List<TransactionResponseDto> rows = typedQuery.setMaxResults(pageable.getPageSize() + 1).getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<TransactionResponseDto> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public Stream<TransactionResponseDto> streamForExport(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionResponseDto> query = cb.createQuery(TransactionResponseDto.class);
+        Root<Transaction> transaction = selectDto(cb, query);
+        query.where(predicates(cb, transaction, userId, null, null, startDate, endDate))
+            .orderBy(cb.asc(transaction.get("createdAt")), cb.asc(transaction.get("id")));
+
+        return entityManager.createQuery(query)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    private Root<Transaction> selectDto(CriteriaBuilder cb, CriteriaQuery<TransactionResponseDto> query) {
+        Root<Transaction> transaction = query.from(Transaction.class);
+        Join<Transaction, User> user = transaction.join("user");
+        Join<Transaction, User> toUser = transaction.join("toUser", JoinType.LEFT);
+        query.select(cb.construct(TransactionResponseDto.class,
+            transaction.get("id"), user.get("id"), user.get("fullName"),
+            toUser.get("id"), toUser.get("fullName"),
+            transaction.get("amount"), transaction.get("type"), transaction.get("description"),
+            transaction.get("status"), transaction.get("createdAt"), transaction.get("processedAt")));
+        return transaction;
+    }
+
+    // The count needs neither the user joins nor the ORDER BY
+    private long count(Long userId, TransactionType type, TransactionStatus status,
+                       LocalDateTime startDate, LocalDateTime endDate) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Transaction> transaction = query.from(Transaction.class);
+        query.select(cb.count(transaction))
+            .where(predicates(cb, transaction, userId, type, status, startDate, endDate));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Predicate[] predicates(CriteriaBuilder cb, Root<Transaction> transaction,
+                                   Long userId, TransactionType type, TransactionStatus status,
+                                   LocalDateTime startDate, LocalDateTime endDate) {
+        List<Predicate> predicates = new ArrayList<>(5);
+        if (userId != null) {
+            // Compares the foreign key column itself, without joining users
+            predicates.add(cb.equal(transaction.get("user").get("id"), userId));
+        }
+        if (type != null) {
+            predicates.add(cb.equal(transaction.get("type"), type));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(transaction.get("status"), status));
+        }
+        if (startDate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(transaction.get("createdAt"), startDate));
+        }
+        if (endDate != null) {
+            predicates.add(cb.lessThanOrEqualTo(transaction.get("createdAt"), endDate));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
@@ -1,49 +1,145 @@
 package uz.hayotbank.hbfinancialproduct.repository;
 
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
 import uz.hayotbank.hbfinancialproduct.entity.Transaction;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionFilterRepository {
 
-    Page<Transaction> findByUserId(Long userId, Pageable pageable);
+    // Listings read TransactionResponseDto directly: user names are joined into the same SELECT,
+    // so a page costs one data query instead of one plus up to two user loads per row.
+    // Each listing has a Slice twin for callers that do not need the total: a Slice query
+    // fetches one extra row to learn whether a next page exists and never runs a COUNT.
+    // The free combination of filters lives in TransactionFilterRepository
 
-    List<Transaction> findByUserIdAndStatus(Long userId, TransactionStatus status);
+    String DTO_SELECT = "SELECT new uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto(" +
+        "t.id, u.id, u.fullName, tu.id, tu.fullName, t.amount, t.type, t.description, " +
+        "t.status, t.createdAt, t.processedAt) " +
+        "FROM Transaction t JOIN t.user u LEFT JOIN t.toUser tu ";
 
-    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId " +
-        "AND t.createdAt BETWEEN :startDate AND :endDate")
-    Page<Transaction> findByUserIdAndDateRange(@Param("userId") Long userId,
-                                               @Param("startDate") LocalDateTime startDate,
-                                               @Param("endDate") LocalDateTime endDate,
-                                               Pageable pageable);
+    String COUNT_SELECT = "SELECT COUNT(t) FROM Transaction t ";
 
-    Page<Transaction> findByStatus(TransactionStatus status, Pageable pageable);
+    String USER_WHERE = "WHERE t.user.id = :userId";
 
-    Page<Transaction> findByType(TransactionType type, Pageable pageable);
+    String DATE_RANGE_WHERE = "WHERE t.user.id = :userId AND t.createdAt BETWEEN :startDate AND :endDate";
 
-    Page<Transaction> findByUserIdAndType(Long userId, TransactionType type, Pageable pageable);
+    String STATUS_WHERE = "WHERE t.status = :status";
 
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "(:userId IS NULL OR t.user.id = :userId) AND " +
-           "(:type IS NULL OR t.type = :type) AND " +
-           "(:status IS NULL OR t.status = :status) AND " +
-           "(:startDate IS NULL OR t.createdAt >= :startDate) AND " +
-           "(:endDate IS NULL OR t.createdAt <= :endDate)")
-    Page<Transaction> findWithFilters(@Param("userId") Long userId,
-                                    @Param("type") TransactionType type,
-                                    @Param("status") TransactionStatus status,
-                                    @Param("startDate") LocalDateTime startDate,
-                                    @Param("endDate") LocalDateTime endDate,
-                                    Pageable pageable);
+    String TYPE_WHERE = "WHERE t.type = :type";
 
-    List<Transaction> findByToUserIdAndStatusAndType(Long toUserId, TransactionStatus status, TransactionType type);
+    String USER_TYPE_WHERE = "WHERE t.user.id = :userId AND t.type = :type";
+
+    @Query(DTO_SELECT + "WHERE t.id = :id")
+    Optional<TransactionResponseDto> findByIdAsDto(@Param("id") Long id);
+
+    @Query(value = DTO_SELECT, countQuery = COUNT_SELECT)
+    Page<TransactionResponseDto> findAllAsDto(Pageable pageable);
+
+    @Query(DTO_SELECT)
+    Slice<TransactionResponseDto> findSliceAsDto(Pageable pageable);
+
+    @Query(value = DTO_SELECT + USER_WHERE, countQuery = COUNT_SELECT + USER_WHERE)
+    Page<TransactionResponseDto> findByUserIdAsDto(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(DTO_SELECT + USER_WHERE)
+    Slice<TransactionResponseDto> findSliceByUserIdAsDto(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = DTO_SELECT + DATE_RANGE_WHERE, countQuery = COUNT_SELECT + DATE_RANGE_WHERE)
+    Page<TransactionResponseDto> findByUserIdAndDateRangeAsDto(@Param("userId") Long userId,
+                                                               @Param("startDate") LocalDateTime startDate,
+                                                               @Param("endDate") LocalDateTime endDate,
+                                                               Pageable pageable);
+
+    @Query(DTO_SELECT + DATE_RANGE_WHERE)
+    Slice<TransactionResponseDto> findSliceByUserIdAndDateRangeAsDto(@Param("userId") Long userId,
+                                                                     @Param("startDate") LocalDateTime startDate,
+                                                                     @Param("endDate") LocalDateTime endDate,
+                                                                     Pageable pageable);
+
+    @Query(value = DTO_SELECT + STATUS_WHERE, countQuery = COUNT_SELECT + STATUS_WHERE)
+    Page<TransactionResponseDto> findByStatusAsDto(@Param("status") TransactionStatus status, Pageable pageable);
+
+    @Query(DTO_SELECT + STATUS_WHERE)
+    Slice<TransactionResponseDto> findSliceByStatusAsDto(@Param("status") TransactionStatus status, Pageable pageable);
+
+    @Query(value = DTO_SELECT + TYPE_WHERE, countQuery = COUNT_SELECT + TYPE_WHERE)
+    Page<TransactionResponseDto> findByTypeAsDto(@Param("type") TransactionType type, Pageable pageable);
+
+    @Query(DTO_SELECT + TYPE_WHERE)
+    Slice<TransactionResponseDto> findSliceByTypeAsDto(@Param("type") TransactionType type, Pageable pageable);
+
+    @Query(value = DTO_SELECT + USER_TYPE_WHERE, countQuery = COUNT_SELECT + USER_TYPE_WHERE)
+    Page<TransactionResponseDto> findByUserIdAndTypeAsDto(@Param("userId") Long userId,
+                                                          @Param("type") TransactionType type,
+                                                          Pageable pageable);
+
+    @Query(DTO_SELECT + USER_TYPE_WHERE)
+    Slice<TransactionResponseDto> findSliceByUserIdAndTypeAsDto(@Param("userId") Long userId,
+                                                                @Param("type") TransactionType type,
+                                                                Pageable pageable);
+
+    /**
+     * Planner estimate of the table size, maintained by VACUUM/ANALYZE. Negative if the table was never analyzed.
+     */
+    @Query(value = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'transactions'::regclass", nativeQuery = true)
+    long estimateRowCount();
+
+    /**
+     * Claims up to {@code limit} PENDING transactions that are due at {@code now}, oldest first. Rows already
+     * claimed by another processor are skipped instead of waited for; the claim lasts until the surrounding
+     * transaction ends.
+     */
+    @Query(value = "SELECT * FROM transactions WHERE status = 'PENDING' " +
+        "AND (retry_at IS NULL OR retry_at <= :now) " +
+        "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Transaction> claimPending(@Param("limit") int limit, @Param("now") LocalDateTime now);
+
+    /**
+     * Claims one PENDING transaction, or nothing if it is no longer pending or another processor holds it.
+     */
+    @Query(value = "SELECT * FROM transactions WHERE id = :id AND status = 'PENDING' " +
+        "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Transaction> claimPendingById(@Param("id") Long id);
+
+    // Keyset pagination, newest first. The row comparison on (createdAt, id) seeks straight into
+    // the (created_at, id) indexes, so the cost of a window does not depend on how deep it is
+
+    @Query(DTO_SELECT +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponseDto> findFirstWindow(Limit limit);
+
+    @Query(DTO_SELECT +
+           "WHERE (t.createdAt, t.id) < (:createdAt, :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponseDto> findWindowAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+
+    @Query(DTO_SELECT +
+           "WHERE u.id = :userId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponseDto> findFirstWindowByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query(DTO_SELECT +
+           "WHERE u.id = :userId AND (t.createdAt, t.id) < (:createdAt, :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponseDto> findWindowByUserIdAfter(@Param("userId") Long userId,
+                                                         @Param("createdAt") LocalDateTime createdAt,
+                                                         @Param("id") Long id,
+                                                         Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import java.util.Optional;
+
+/**
+ * User lookups backed by the Hibernate second-level cache.
+ */
+public interface UserCacheRepository {
+
+    /**
+     * Resolves the user id through the username natural-id cache; a hit leaves only the lookup by primary key,
+     * which always reads the current row.
+     */
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Drops all cached username mappings once the current transaction commits,
+     * or right away when there is none.
+     */
+    void evictUsernamesFromCache();
+}
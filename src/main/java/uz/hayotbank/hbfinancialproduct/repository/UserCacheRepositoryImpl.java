@@ -0,0 +1,73 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Optional;
+
+/**
+ * Natural-id access to User, see the cache region in hibernate-cache.conf.
+ */
+class UserCacheRepositoryImpl implements UserCacheRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        // Inside a transaction the user joins the current persistence context
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadByUsername(entityManager, username);
+        }
+
+        // JwtAuthenticationFilter calls this outside of any transaction: a short-lived session holds
+        // a pooled connection only for the lookup itself
+        EntityManager standalone = entityManager.getEntityManagerFactory().createEntityManager();
+        try {
+            return loadByUsername(standalone, username);
+        } finally {
+            standalone.close();
+        }
+    }
+
+    private Optional<User> loadByUsername(EntityManager entityManager, String username) {
+        Optional<User> user = entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+        if (user.isEmpty() || username.equals(user.get().getUsername())) {
+            return user;
+        }
+        // The cached mapping predates a rename made on another instance: the user itself is always
+        // loaded from the database, so the mismatch shows and the username is resolved by query instead
+        evictNaturalIds(entityManager.getEntityManagerFactory());
+        return entityManager.createQuery("SELECT u FROM User u WHERE u.username = :username", User.class)
+                .setParameter("username", username)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public void evictUsernamesFromCache() {
+        EntityManagerFactory entityManagerFactory = entityManager.getEntityManagerFactory();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNaturalIds(entityManagerFactory);
+            return;
+        }
+        // Evicting before commit would let a concurrent reader put the old state back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictNaturalIds(entityManagerFactory);
+            }
+        });
+    }
+
+    // The natural-id region has no per-entity eviction, so all username mappings are dropped;
+    // they are rebuilt by the next lookup of each user
+    private static void evictNaturalIds(EntityManagerFactory entityManagerFactory) {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictNaturalIdData(User.class);
+    }
+}
@@ -1,17 +1,35 @@
 package uz.hayotbank.hbfinancialproduct.repository;
 
 import uz.hayotbank.hbfinancialproduct.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserCacheRepository {
 
-    Optional<User> findByUsername(String username);
+    /**
+     * Loads the user with SELECT ... FOR UPDATE, blocking concurrent balance changes until commit.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Locks several users with one SELECT ... FOR UPDATE, in ascending id order like single-account locks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
     Optional<User> findByEmail(String email);
 
@@ -19,6 +37,39 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.username LIKE %:search% OR u.fullName LIKE %:search% OR u.email LIKE %:search%")
-    Page<User> findBySearchTerm(String search, Pageable pageable);
+    // Substring search served by the pg_trgm GIN indexes from V14; best matches by trigram similarity first.
+    // Terms shorter than three characters have no trigram to look up and still scan the table
+
+    String SEARCH_WHERE =
+        "WHERE u.username ILIKE '%' || :search || '%' " +
+        "OR u.full_name ILIKE '%' || :search || '%' " +
+        "OR u.email ILIKE '%' || :search || '%' ";
+
+    String SEARCH_QUERY = "SELECT u.* FROM users u " + SEARCH_WHERE +
+        "ORDER BY GREATEST(similarity(u.username, :search), similarity(u.full_name, :search), " +
+        "similarity(u.email, :search)) DESC, u.id";
+
+    @Query(value = SEARCH_QUERY, countQuery = "SELECT COUNT(*) FROM users u " + SEARCH_WHERE, nativeQuery = true)
+    Page<User> findBySearchTerm(@Param("search") String search, Pageable pageable);
+
+    // Slice twins skip the COUNT query, see TransactionRepository
+
+    Slice<User> findSliceBy(Pageable pageable);
+
+    @Query(value = SEARCH_QUERY, nativeQuery = true)
+    Slice<User> findSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+
+    /**
+     * Loads the user with SELECT ... FOR UPDATE by username, so changes made through the returned entity
+     * cannot lose a version race with a concurrent balance update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.username = :username")
+    Optional<User> findByUsernameForUpdate(@Param("username") String username);
+
+    /**
+     * Planner estimate of the table size, maintained by VACUUM/ANALYZE. Negative if the table was never analyzed.
+     */
+    @Query(value = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'users'::regclass", nativeQuery = true)
+    long estimateRowCount();
 }
\ No newline at end of file
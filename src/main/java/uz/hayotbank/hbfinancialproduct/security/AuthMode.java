@@ -0,0 +1,14 @@
+package uz.hayotbank.hbfinancialproduct.security;
+
+/**
+ * How {@link JwtAuthenticationFilter} turns a valid access token into an Authentication.
+ */
+public enum AuthMode {
+    /** Loads the user named by the token subject on every request. The default. */
+    LOOKUP,
+    /**
+     * Builds the Authentication from the uid and authorities claims; only the revocation list is consulted.
+     * Opt-in: a deleted user's tokens keep working on the other instances until they expire.
+     */
+    STATELESS
+}
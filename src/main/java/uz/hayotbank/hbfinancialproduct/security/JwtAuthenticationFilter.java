@@ -1,11 +1,14 @@
 package uz.hayotbank.hbfinancialproduct.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,16 +18,24 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationList tokenRevocationList;
+    private final AuthMode authMode;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                                   TokenRevocationList tokenRevocationList,
+                                   @Value("${application.auth-mode:LOOKUP}") AuthMode authMode) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.authMode = authMode;
     }
 
     @Override
@@ -44,10 +55,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateJwtToken(jwt)) {
-                String username = jwtUtil.getUserNameFromJwtToken(jwt);
+            Claims claims = jwt != null ? jwtUtil.getVerifiedClaims(jwt) : null;
+            if (claims != null) {
+                UserDetails userDetails = resolveUser(claims);
+                if (userDetails == null) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -61,6 +76,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Returns null when the token belongs to a revoked user; the request then stays unauthenticated.
+     */
+    private UserDetails resolveUser(Claims claims) {
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        // Tokens issued before the claims were added carry only the username and are still looked up
+        if (authMode == AuthMode.LOOKUP || userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (tokenRevocationList.isRevoked(userId)) {
+            return null;
+        }
+        return new org.springframework.security.core.userdetails.User(claims.getSubject(), "", authorities(claims));
+    }
+
+    private static Collection<SimpleGrantedAuthority> authorities(Claims claims) {
+        List<?> names = claims.get(JwtUtil.AUTHORITIES_CLAIM, List.class);
+        if (names == null) {
+            return List.of();
+        }
+        return names.stream()
+            .map(name -> new SimpleGrantedAuthority(name.toString()))
+            .toList();
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
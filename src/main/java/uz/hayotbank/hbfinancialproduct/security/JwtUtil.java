@@ -1,32 +1,77 @@
 package uz.hayotbank.hbfinancialproduct.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${application.jwt-secret}")
-    private String jwtSecret;
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${application.access-token-expiry}")
-    private int jwtExpirationMs;
+    /** Id of the user, lets the filter authenticate without loading the user. */
+    public static final String USER_ID_CLAIM = "uid";
 
-    @Value("${application.refresh-token-expiry}")
-    private int refreshTokenExpirationMs;
+    /** Granted authority names of the user at the time the token was issued. */
+    public static final String AUTHORITIES_CLAIM = "authorities";
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final int jwtExpirationMs;
+    private final int refreshTokenExpirationMs;
+
+    // Both are immutable and thread-safe, so they are built once instead of per call
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    // SHA-256 of the token -> its verified claims. A client sends the same bearer token until it
+    // expires, so repeat requests skip signature verification and JSON parsing. Entries expire
+    // together with the token, a hit is therefore never an expired token
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtUtil(@Value("${application.jwt-secret}") String jwtSecret,
+                   @Value("${application.access-token-expiry}") int jwtExpirationMs,
+                   @Value("${application.refresh-token-expiry}") int refreshTokenExpirationMs,
+                   @Value("${application.auth.verified-token-cache-size:10000}") long verifiedTokenCacheSize) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.refreshTokenExpirationMs = refreshTokenExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
-    public String generateJwtToken(String username) {
-        return generateTokenFromUsername(username, jwtExpirationMs);
+    public String generateJwtToken(Long userId, String username, Collection<? extends GrantedAuthority> authorities) {
+        List<String> authorityNames = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(AUTHORITIES_CLAIM, authorityNames)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
     }
 
     public String generateRefreshToken(String username) {
@@ -38,35 +83,81 @@ public class JwtUtil {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaimsFromJwtToken(token).getSubject();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the token and returns its claims; throws a {@link JwtException} if it is invalid or expired.
+     * The returned claims may be shared with other callers and must not be modified.
+     */
+    public Claims getClaimsFromJwtToken(String token) {
+        String key = sha256(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            // Tokens without an expiry are verified every time rather than cached forever
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(key, claims);
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Same as {@link #getClaimsFromJwtToken(String)}, but returns null instead of throwing for an invalid token.
+     */
+    public Claims getVerifiedClaims(String authToken) {
+        // Tokens come from clients, so a rejection is logged at debug and without the parser's message
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return getClaimsFromJwtToken(authToken);
         } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            log.debug("Rejected malformed JWT token");
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
+            log.debug("Rejected expired JWT token");
         } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
+            log.debug("Rejected unsupported JWT token");
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            log.debug("Rejected empty JWT token");
+        } catch (JwtException e) {
+            log.debug("Rejected JWT token with an invalid signature");
+        }
+        return null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package uz.hayotbank.hbfinancialproduct.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+
+/**
+ * Users whose access tokens must no longer be accepted although they are still validly signed,
+ * e.g. because the user was deleted. Only needed in {@link AuthMode#STATELESS}, where the filter
+ * does not look the user up.
+ *
+ * An entry lives as long as an access token, after that every token issued before the revocation
+ * has expired anyway. The list is kept in memory, so it only covers the instance that revoked the user,
+ * is lost on restart and drops entries once it is full: STATELESS mode accepts that revocation lag.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Cache<Long, Boolean> revokedUserIds;
+
+    public TokenRevocationList(@Value("${application.access-token-expiry}") long accessTokenExpiryMs,
+                               @Value("${application.auth.revocation-list-size:100000}") long maxSize) {
+        this.revokedUserIds = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(accessTokenExpiryMs))
+            .maximumSize(maxSize)
+            .build();
+    }
+
+    /**
+     * Revokes the user once the current transaction commits, or right away when there is none.
+     */
+    public void revokeUser(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revokedUserIds.put(userId, Boolean.TRUE);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revokedUserIds.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    public boolean isRevoked(Long userId) {
+        return revokedUserIds.getIfPresent(userId) != null;
+    }
+}
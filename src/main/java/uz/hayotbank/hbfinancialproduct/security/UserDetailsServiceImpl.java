@@ -3,14 +3,16 @@ package uz.hayotbank.hbfinancialproduct.security;
 import uz.hayotbank.hbfinancialproduct.entity.User;
 import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -29,4 +31,20 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 new ArrayList<>()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash is outdated
+     * (no {bcrypt} prefix or a lower strength than configured), with the password hashed anew.
+     * The hash is changed on the managed entity rather than by a bulk update, which would invalidate
+     * the whole username cache region; the row lock keeps the version check from failing the login.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findByUsernameForUpdate(user.getUsername())
+                .ifPresent(entity -> entity.setPassword(newPassword));
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+}
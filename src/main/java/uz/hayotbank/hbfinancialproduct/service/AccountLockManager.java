@@ -0,0 +1,92 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.exception.AccountBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process striped locks keyed by account id.
+ *
+ * Used by the {@link AccountLockingStrategy#STRIPED} strategy only. Taken before the DB transaction
+ * is opened, so requests contending for the same account wait here instead of holding a pooled connection.
+ * This only serializes requests within one instance; the version check on commit remains the source
+ * of truth, and conflicts with other instances are retried.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+
+    public AccountLockManager(@Value("${application.ledger.lock-stripes:1024}") int stripeCount,
+                              @Value("${application.ledger.lock-timeout-ms:5000}") long timeoutMs) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Lock stripe count must be positive");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    public <T> T withAccountLock(Long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeIndex(accountId)];
+        acquire(lock, accountId);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the stripes of both accounts, always in ascending stripe order so that two requests
+     * locking the same pair in opposite directions cannot deadlock.
+     */
+    public <T> T withAccountLocks(Long firstAccountId, Long secondAccountId, Supplier<T> action) {
+        int firstIndex = stripeIndex(firstAccountId);
+        int secondIndex = stripeIndex(secondAccountId);
+        if (firstIndex == secondIndex) {
+            return withAccountLock(firstAccountId, action);
+        }
+
+        Long lowerAccountId = firstIndex < secondIndex ? firstAccountId : secondAccountId;
+        Long upperAccountId = firstIndex < secondIndex ? secondAccountId : firstAccountId;
+        ReentrantLock lower = stripes[Math.min(firstIndex, secondIndex)];
+        ReentrantLock upper = stripes[Math.max(firstIndex, secondIndex)];
+
+        acquire(lower, lowerAccountId);
+        try {
+            acquire(upper, upperAccountId);
+            try {
+                return action.get();
+            } finally {
+                upper.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    int stripeIndex(Long accountId) {
+        // Spread the bits so sequential ids do not map to neighbouring stripes only
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) stripes.length);
+    }
+
+    private void acquire(ReentrantLock lock, Long accountId) {
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new AccountBusyException(accountId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException(accountId);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+/**
+ * How TransactionService protects the account balance it is about to change.
+ */
+public enum AccountLockingStrategy {
+    PESSIMISTIC, // SELECT ... FOR UPDATE on the account row, concurrent writers wait
+    OPTIMISTIC,  // version check on commit, conflicting writers are retried
+    STRIPED      // in-process striped lock before a connection is borrowed, then the OPTIMISTIC version check
+}
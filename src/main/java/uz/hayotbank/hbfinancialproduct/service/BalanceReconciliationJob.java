@@ -0,0 +1,75 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.repository.BalanceSnapshotRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically verifies the stored running balance of every user against the balance
+ * recomputed from the completed transactions, and the latest balance snapshot of every user
+ * against the ledger up to that snapshot. Mismatches are only reported, never corrected.
+ */
+@Component
+public class BalanceReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceReconciliationJob.class);
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Value("${application.balance.reconciliation-page-size:500}")
+    private int pageSize;
+
+    public BalanceReconciliationJob(UserRepository userRepository, UserService userService,
+                                    BalanceSnapshotRepository balanceSnapshotRepository) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+    }
+
+    @Scheduled(cron = "${application.balance.reconciliation-cron:0 0 3 * * *}")
+    public void reconcile() {
+        int checked = 0;
+        int mismatches = 0;
+        int snapshotDrifts = 0;
+
+        Pageable pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+        Page<User> page;
+        do {
+            page = userRepository.findAll(pageable);
+            List<Long> userIds = page.map(User::getId).getContent();
+            Map<Long, BigDecimal> ledgerBalances = userService.calculateBalances(userIds);
+            for (User user : page) {
+                BigDecimal ledgerBalance = ledgerBalances.get(user.getId());
+                if (ledgerBalance.compareTo(user.getBalance()) != 0) {
+                    mismatches++;
+                    log.warn("Balance mismatch for user {}: stored {}, ledger {}",
+                        user.getId(), user.getBalance(), ledgerBalance);
+                }
+                checked++;
+            }
+            for (BalanceSnapshotRepository.SnapshotDrift drift : balanceSnapshotRepository.findDrifted(userIds)) {
+                snapshotDrifts++;
+                log.warn("Balance snapshot drift for user {} as of {}: snapshot {}, ledger {}",
+                    drift.getAccountId(), drift.getAsOf(), drift.getSnapshotBalance(), drift.getLedgerBalance());
+            }
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+
+        log.info("Balance reconciliation finished: {} users checked, {} mismatches, {} drifted snapshots",
+            checked, mismatches, snapshotDrifts);
+    }
+}
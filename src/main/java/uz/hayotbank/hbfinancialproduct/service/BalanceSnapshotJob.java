@@ -0,0 +1,48 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.repository.BalanceSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+/**
+ * Periodically snapshots the balance of every account that had ledger postings since the previous run,
+ * so {@link UserService#balanceAsOf} only has to sum the postings after the nearest snapshot.
+ *
+ * A posting is stamped before its transaction commits, so the snapshot is taken just before the oldest
+ * transaction still open: everything stamped up to then has committed, and later commits go into the next
+ * snapshot. {@link BalanceReconciliationJob} checks the latest snapshots against the ledger.
+ */
+@Component
+public class BalanceSnapshotJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+
+    // Lower bound of the first run: every posting is newer
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    public BalanceSnapshotJob(BalanceSnapshotRepository balanceSnapshotRepository) {
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+    }
+
+    @Scheduled(cron = "${application.balance.snapshot-cron:0 0 * * * *}")
+    @Transactional
+    public void takeSnapshots() {
+        LocalDateTime asOf = balanceSnapshotRepository.findCommittedUntil();
+        LocalDateTime since = balanceSnapshotRepository.findLatestAsOf();
+        if (since == null) {
+            since = BEGINNING;
+        }
+        if (!asOf.isAfter(since)) {
+            return;
+        }
+
+        int written = balanceSnapshotRepository.insertSnapshots(since, asOf);
+        log.info("Balance snapshots as of {}: {} accounts changed since {}", asOf, written, since);
+    }
+}
@@ -0,0 +1,148 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.IdempotencyKey;
+import uz.hayotbank.hbfinancialproduct.exception.IdempotencyKeyReuseException;
+import uz.hayotbank.hbfinancialproduct.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Makes transaction creation safe to retry: the first request with a given Idempotency-Key is executed,
+ * every later one with the same key and body gets the stored response back without touching any account.
+ *
+ * Stored responses live in the idempotency_keys table; the most recent ones are also kept in a bounded
+ * local cache, so a client retrying against the same instance does not even reach the database.
+ * Keys are not scoped per user, clients are expected to send a random value such as a UUID.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StoredResponse> responses;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${application.transactions.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${application.transactions.idempotency.cache-ttl-minutes:60}") long cacheTtlMinutes) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+            .build();
+    }
+
+    /**
+     * Runs {@code action} unless a response is already stored for the key. The action receives a recorder
+     * that it must apply to its result inside the DB transaction that posts it, which stores the key
+     * atomically with the posting. Without a key the action simply runs.
+     *
+     * When a concurrent request with the same key commits first, the recorder fails with a unique
+     * violation, the posting is rolled back and the other request's response is returned instead.
+     *
+     * @throws IdempotencyKeyReuseException if the key was used for another operation or request body
+     */
+    public TransactionResponseDto execute(String key, String operation, Object request,
+                                          Function<UnaryOperator<TransactionResponseDto>, TransactionResponseDto> action) {
+        if (key == null) {
+            return action.apply(UnaryOperator.identity());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+
+        String requestHash = hash(operation, request);
+        TransactionResponseDto stored = findStoredResponse(key, requestHash);
+        if (stored != null) {
+            return stored;
+        }
+        try {
+            return action.apply(response -> record(key, requestHash, response));
+        } catch (DataIntegrityViolationException e) {
+            stored = findStoredResponse(key, requestHash);
+            if (stored == null) {
+                throw e;
+            }
+            return stored;
+        }
+    }
+
+    private TransactionResponseDto findStoredResponse(String key, String requestHash) {
+        StoredResponse stored = responses.getIfPresent(key);
+        if (stored == null) {
+            IdempotencyKey row = idempotencyKeyRepository.findById(key).orElse(null);
+            if (row == null) {
+                return null;
+            }
+            stored = new StoredResponse(row.getRequestHash(), fromJson(row.getResponse()));
+            responses.put(key, stored);
+        }
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        return stored.response();
+    }
+
+    private TransactionResponseDto record(String key, String requestHash, TransactionResponseDto response) {
+        idempotencyKeyRepository.insert(key, requestHash, response.getId(), toJson(response));
+        // Cached only on commit, a rolled back posting must not be replayed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                responses.put(key, new StoredResponse(requestHash, response));
+            }
+        });
+        return response;
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the request", e);
+        }
+    }
+
+    private String toJson(TransactionResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction " + response.getId(), e);
+        }
+    }
+
+    private TransactionResponseDto fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, TransactionResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored idempotent response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, TransactionResponseDto response) {
+    }
+}
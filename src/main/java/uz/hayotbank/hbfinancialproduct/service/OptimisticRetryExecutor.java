@@ -0,0 +1,122 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleObjectStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a balance mutation when it loses an optimistic version check on an account.
+ *
+ * The action must open its own DB transaction, so each attempt starts from fresh account state.
+ * When the caller is already inside a transaction the conflict is rethrown immediately,
+ * because that transaction is marked rollback-only and cannot be retried from here.
+ *
+ * Metrics are tagged by operation only, so their number stays fixed. The account whose version
+ * check failed is taken from the exception and logged, which names the hot account even when
+ * the conflicts come from many different counterparties.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.ledger.optimistic-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${application.ledger.optimistic-retry.initial-backoff-ms:5}")
+    private long initialBackoffMs;
+
+    @Value("${application.ledger.optimistic-retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.get();
+                attempts(operation).record(attempt);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    counter("ledger.optimistic.exhausted", operation).increment();
+                    attempts(operation).record(attempt);
+                    log.warn("Optimistic lock conflict on account {} during {}, giving up after {} attempts",
+                        conflictingAccountId(e), operation, attempt);
+                    throw e;
+                }
+
+                counter("ledger.optimistic.retries", operation).increment();
+                log.debug("Optimistic lock conflict on account {} during {}, attempt {}",
+                    conflictingAccountId(e), operation, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        // Full jitter: sleep a random time up to the exponential bound
+        long bound = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry " + attempt, e);
+        }
+    }
+
+    private static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Id of the entity whose version check failed, or "unknown" when the exception does not carry it
+    static Object conflictingAccountId(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ObjectOptimisticLockingFailureException failure && failure.getIdentifier() != null) {
+                return failure.getIdentifier();
+            }
+            if (cause instanceof StaleObjectStateException stale && stale.getIdentifier() != null) {
+                return stale.getIdentifier();
+            }
+        }
+        return "unknown";
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+            .description("Optimistic lock conflicts on account balance updates")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary attempts(String operation) {
+        return DistributionSummary.builder("ledger.optimistic.attempts")
+            .description("Attempts needed to apply a balance update")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,37 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import java.util.function.LongSupplier;
+
+/**
+ * How the total of a paged listing is obtained.
+ */
+public enum PageTotal {
+    /** Exact {@code COUNT(*)}; the listing is returned as a Page. */
+    EXACT,
+    /** Planner estimate from {@code pg_class.reltuples}; only meaningful for unfiltered listings. */
+    APPROXIMATE,
+    /** No total at all; the listing is returned as a Slice that only knows whether a next page exists. */
+    NONE;
+
+    public static PageTotal of(boolean withTotal, boolean approximateTotal) {
+        if (!withTotal) {
+            return NONE;
+        }
+        return approximateTotal ? APPROXIMATE : EXACT;
+    }
+
+    /**
+     * Turns a Slice into a Page whose total is the planner estimate. Falls back to the exact count
+     * while the table has never been analyzed. PageImpl corrects the total on the last page.
+     */
+    static <T> Page<T> withEstimatedTotal(Slice<T> slice, LongSupplier estimate, LongSupplier exactCount) {
+        long total = estimate.getAsLong();
+        if (total < 0) {
+            total = exactCount.getAsLong();
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+}
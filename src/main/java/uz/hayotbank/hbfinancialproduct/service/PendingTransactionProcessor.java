@@ -0,0 +1,74 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drains the PENDING queue when transactions are processed asynchronously.
+ *
+ * Every poll starts {@code workers} virtual threads; each claims batches with
+ * {@code FOR UPDATE SKIP LOCKED} until the queue is empty, so several workers
+ * (and several application instances) never process the same row twice.
+ */
+@Component
+@ConditionalOnProperty(name = "application.transactions.processing-mode", havingValue = "ASYNC")
+public class PendingTransactionProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingTransactionProcessor.class);
+
+    private final TransactionService transactionService;
+
+    @Value("${application.transactions.async.workers:4}")
+    private int workers;
+
+    @Value("${application.transactions.async.batch-size:100}")
+    private int batchSize;
+
+    public PendingTransactionProcessor(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @Scheduled(fixedDelayString = "${application.transactions.async.poll-interval-ms:200}")
+    public void drain() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                results.add(executor.submit(this::drainUntilEmpty));
+            }
+
+            int processed = 0;
+            for (Future<Integer> result : results) {
+                processed += result.get();
+            }
+            if (processed > 0) {
+                log.debug("Processed {} pending transactions", processed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Failures of single transactions are recorded by processPendingBatch; this one could not be
+            // recorded (e.g. the database is unreachable), the rows stay PENDING for the next poll
+            log.warn("Pending transaction batch failed", e.getCause());
+        }
+    }
+
+    private int drainUntilEmpty() {
+        int processed = 0;
+        int claimed;
+        do {
+            claimed = transactionService.processPendingBatch(batchSize);
+            processed += claimed;
+        } while (claimed == batchSize);
+        return processed;
+    }
+}
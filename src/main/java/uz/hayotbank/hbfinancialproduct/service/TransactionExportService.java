@@ -0,0 +1,141 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's transactions straight from a forward-only database cursor to the response.
+ * Nothing is collected in between, so memory use does not depend on the number of rows.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final String CSV_HEADER =
+        "id,userId,userName,toUserId,toUserName,amount,type,description,status,createdAt,processedAt";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + ". Use csv or ndjson");
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final UserService userService;
+    private final TransactionTemplate readOnlyTemplate;
+    private final ObjectWriter jsonWriter;
+
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    UserService userService,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.userService = userService;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.jsonWriter = objectMapper.writerFor(TransactionResponseDto.class);
+    }
+
+    /**
+     * Fails fast with {@code UserNotFoundException} while an error status can still be sent,
+     * i.e. before the streaming part of the response starts.
+     */
+    public void checkExportable(Long userId) {
+        userService.findEntityById(userId);
+    }
+
+    public void export(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                       Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        // The cursor only lives inside a transaction; read-only lets Hibernate skip dirty checking
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<TransactionResponseDto> rows = transactionRepository.streamForExport(userId, startDate, endDate)) {
+                    Iterator<TransactionResponseDto> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        writeRow(writer, iterator.next(), format);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, TransactionResponseDto row, Format format) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(jsonWriter.writeValueAsString(row));
+        } else {
+            writer.write(toCsvLine(row));
+        }
+        writer.write('\n');
+    }
+
+    static String toCsvLine(TransactionResponseDto row) {
+        return String.join(",",
+            csv(row.getId()),
+            csv(row.getUserId()),
+            csv(row.getUserName()),
+            csv(row.getToUserId()),
+            csv(row.getToUserName()),
+            csv(row.getAmount() != null ? row.getAmount().toPlainString() : null),
+            csv(row.getType()),
+            csv(row.getDescription()),
+            csv(row.getStatus()),
+            csv(row.getCreatedAt()),
+            csv(row.getProcessedAt()));
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, and double embedded quotes
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
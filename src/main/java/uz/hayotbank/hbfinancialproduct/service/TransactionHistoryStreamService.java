@@ -0,0 +1,134 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking read path for transaction history over R2DBC. Writes stay on JPA.
+ *
+ * Rows are fetched through a server-side portal {@code fetchSize} rows at a time and only as fast as
+ * the subscriber requests them, so a slow reader holds neither a thread nor the whole history in memory.
+ *
+ * The connection pool is deliberately not exposed as a bean: a {@code ConnectionFactory} bean would make
+ * Spring Boot back off from configuring the JDBC DataSource used by JPA and Flyway.
+ */
+@Service
+@ConditionalOnProperty(name = "application.r2dbc.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionHistoryStreamService implements DisposableBean {
+
+    private static final String SELECT_SQL =
+        "SELECT t.id, t.user_id, u.full_name AS user_name, t.to_user_id, tu.full_name AS to_user_name, " +
+        "t.amount, t.type, t.description, t.status, t.created_at, t.processed_at " +
+        "FROM transactions t " +
+        "JOIN users u ON u.id = t.user_id " +
+        "LEFT JOIN users tu ON tu.id = t.to_user_id ";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public TransactionHistoryStreamService(@Value("${application.r2dbc.url}") String url,
+                                           @Value("${application.r2dbc.username}") String username,
+                                           @Value("${application.r2dbc.password}") String password,
+                                           @Value("${application.r2dbc.pool.max-size:10}") int maxPoolSize,
+                                           @Value("${application.r2dbc.fetch-size:250}") int fetchSize) {
+        // The password is set as an option rather than in the URL, where characters like '#' would need escaping
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .initialSize(0)
+            .maxSize(maxPoolSize)
+            .maxIdleTime(Duration.ofMinutes(10))
+            .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.fetchSize = fetchSize;
+    }
+
+    public Flux<TransactionResponseDto> streamByUserId(Long userId, int limit) {
+        return databaseClient.sql(SELECT_SQL +
+                "WHERE t.user_id = :userId ORDER BY t.created_at DESC, t.id DESC LIMIT :limit")
+            .bind("userId", userId)
+            .bind("limit", limit)
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .map((row, metadata) -> toResponseDto(row))
+            .all();
+    }
+
+    public Flux<TransactionResponseDto> streamWithFilters(Long userId, TransactionType type, TransactionStatus status,
+                                                          LocalDateTime startDate, LocalDateTime endDate, int limit) {
+        // Only the given filters end up in the SQL, so the planner can use the matching index
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        StringBuilder where = new StringBuilder("WHERE 1 = 1");
+        if (userId != null) {
+            where.append(" AND t.user_id = :userId");
+            bindings.put("userId", userId);
+        }
+        if (type != null) {
+            where.append(" AND t.type = :type");
+            bindings.put("type", type.name());
+        }
+        if (status != null) {
+            where.append(" AND t.status = :status");
+            bindings.put("status", status.name());
+        }
+        if (startDate != null) {
+            where.append(" AND t.created_at >= :startDate");
+            bindings.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            where.append(" AND t.created_at <= :endDate");
+            bindings.put("endDate", endDate);
+        }
+        bindings.put("limit", limit);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SELECT_SQL + where +
+            " ORDER BY t.created_at DESC, t.id DESC LIMIT :limit");
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .map((row, metadata) -> toResponseDto(row))
+            .all();
+    }
+
+    private TransactionResponseDto toResponseDto(Row row) {
+        TransactionResponseDto dto = new TransactionResponseDto();
+        dto.setId(row.get("id", Long.class));
+        dto.setUserId(row.get("user_id", Long.class));
+        dto.setUserName(row.get("user_name", String.class));
+        dto.setToUserId(row.get("to_user_id", Long.class));
+        dto.setToUserName(row.get("to_user_name", String.class));
+        dto.setAmount(row.get("amount", BigDecimal.class));
+        dto.setType(TransactionType.valueOf(row.get("type", String.class)));
+        dto.setDescription(row.get("description", String.class));
+        dto.setStatus(TransactionStatus.valueOf(row.get("status", String.class)));
+        dto.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        dto.setProcessedAt(row.get("processed_at", LocalDateTime.class));
+        return dto;
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,11 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+/**
+ * How {@code POST /api/transactions} applies a new transaction to the ledger.
+ */
+public enum TransactionProcessingMode {
+    /** Applied within the request; the response carries the final status. */
+    SYNC,
+    /** Stored as PENDING and applied later by {@link PendingTransactionProcessor}. */
+    ASYNC
+}
@@ -1,150 +1,528 @@
 package uz.hayotbank.hbfinancialproduct.service;
 
+import uz.hayotbank.hbfinancialproduct.dto.BulkTransactionResultDto;
+import uz.hayotbank.hbfinancialproduct.dto.CursorPageDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
 import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
+import uz.hayotbank.hbfinancialproduct.entity.LedgerEntry;
 import uz.hayotbank.hbfinancialproduct.entity.Transaction;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
 import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
 import uz.hayotbank.hbfinancialproduct.entity.User;
 import uz.hayotbank.hbfinancialproduct.exception.InsufficientBalanceException;
 import uz.hayotbank.hbfinancialproduct.exception.InvalidTransferException;
-import uz.hayotbank.hbfinancialproduct.exception.TransactionNotFoundException;
+import uz.hayotbank.hbfinancialproduct.exception.UserNotFoundException;
+import uz.hayotbank.hbfinancialproduct.repository.LedgerEntryRepository;
 import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
-import org.springframework.data.domain.Page;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TransactionService {
 
+    private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+
     private final TransactionRepository transactionRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
     private final UserService userService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final AccountLockManager accountLockManager;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    @Value("${application.ledger.locking-strategy:PESSIMISTIC}")
+    private AccountLockingStrategy lockingStrategy;
+
+    @Value("${application.transactions.processing-mode:SYNC}")
+    private TransactionProcessingMode processingMode;
+
+    @Value("${application.transactions.bulk-chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${application.transactions.async.max-attempts:5}")
+    private int maxProcessingAttempts;
+
+    @Value("${application.transactions.async.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
 
     public TransactionService(TransactionRepository transactionRepository,
-                             UserService userService) {
+                             LedgerEntryRepository ledgerEntryRepository,
+                             UserService userService,
+                             OptimisticRetryExecutor optimisticRetryExecutor,
+                             AccountLockManager accountLockManager,
+                             IdempotencyService idempotencyService,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator) {
         this.transactionRepository = transactionRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
         this.userService = userService;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.accountLockManager = accountLockManager;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
     }
 
+    // Runs outside of a transaction: a STRIPED account lock is taken before a connection is borrowed,
+    // and every retry attempt gets its own DB transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
     public TransactionResponseDto createTransaction(TransactionCreateDto transactionCreateDto) {
-        User user = userService.findEntityById(transactionCreateDto.getUserId());
+        return createTransaction(transactionCreateDto, null);
+    }
+
+    /**
+     * Same as {@link #createTransaction(TransactionCreateDto)}; a repeated idempotency key returns
+     * the stored response instead of posting again. The key may be null.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransactionResponseDto createTransaction(TransactionCreateDto transactionCreateDto, String idempotencyKey) {
+        Long userId = transactionCreateDto.getUserId();
+        return idempotencyService.execute(idempotencyKey, "create", transactionCreateDto, record ->
+            withStripedLock(userId, null, () ->
+                optimisticRetryExecutor.execute("create",
+                    () -> transactionTemplate.execute(status -> record.apply(doCreateTransaction(transactionCreateDto))))));
+    }
+
+    private TransactionResponseDto doCreateTransaction(TransactionCreateDto transactionCreateDto) {
+        rejectTransferType(transactionCreateDto);
+
+        // Lock the account row; the balance is validated once, under the lock
+        User user = loadAccountForUpdate(transactionCreateDto.getUserId());
+
+        Transaction transaction = new Transaction(user, transactionCreateDto.getAmount(),
+            transactionCreateDto.getType(), transactionCreateDto.getDescription());
+        applyToBalances(transaction);
+
+        // Inserted already COMPLETED with its posting; the balance update is flushed on commit
+        List<LedgerEntry> postings = complete(transaction);
+        transactionRepository.save(transaction);
+        ledgerEntryRepository.saveAll(postings);
+
+        return convertToResponseDto(transaction);
+    }
+
+    /**
+     * Creates many CREDIT/DEBIT transactions, one DB transaction per chunk of {@code bulkChunkSize} items.
+     * Items are applied in input order, so a DEBIT can spend a CREDIT posted earlier in the same feed.
+     * A rejected item is reported in its result and does not abort the rest of the batch.
+     *
+     * The items are pulled lazily, which lets a streamed request body be processed without buffering it.
+     * An {@link IllegalArgumentException} thrown by the iterator means unreadable input: the items read
+     * so far are still processed and the failure is reported as the last result.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BulkTransactionResultDto> createTransactionsInBulk(Iterator<TransactionCreateDto> items) {
+        List<BulkTransactionResultDto> results = new ArrayList<>();
+        List<TransactionCreateDto> chunk = new ArrayList<>(bulkChunkSize);
+        int index = 0;
+        while (true) {
+            TransactionCreateDto item;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                item = items.next();
+            } catch (IllegalArgumentException e) {
+                results.addAll(processBulkChunk(chunk, index - chunk.size()));
+                results.add(BulkTransactionResultDto.failed(index, e.getMessage()));
+                return results;
+            }
+
+            chunk.add(item);
+            index++;
+            if (chunk.size() == bulkChunkSize) {
+                results.addAll(processBulkChunk(chunk, index - chunk.size()));
+                chunk.clear();
+            }
+        }
+        results.addAll(processBulkChunk(chunk, index - chunk.size()));
+        return results;
+    }
+
+    private List<BulkTransactionResultDto> processBulkChunk(List<TransactionCreateDto> chunk, int firstIndex) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        // The STRIPED in-process locks are not taken here: a chunk can touch hundreds of accounts,
+        // the DB row locks (or version checks) alone keep the balances consistent
+        try {
+            return optimisticRetryExecutor.execute("bulk",
+                () -> transactionTemplate.execute(status -> doProcessBulkChunk(chunk, firstIndex)));
+        } catch (RuntimeException e) {
+            log.warn("Bulk chunk starting at item {} failed and was rolled back", firstIndex, e);
+            List<BulkTransactionResultDto> failed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.add(BulkTransactionResultDto.failed(firstIndex + i,
+                    "Batch rolled back: " + e.getMessage()));
+            }
+            return failed;
+        }
+    }
+
+    private List<BulkTransactionResultDto> doProcessBulkChunk(List<TransactionCreateDto> chunk, int firstIndex) {
+        // Lock every account of the chunk up front with one query, in ascending id order
+        // A null item is reported by validateBulkItem like any other invalid one
+        Set<Long> userIds = chunk.stream()
+            .filter(Objects::nonNull)
+            .map(TransactionCreateDto::getUserId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, User> accounts = loadAccountsForUpdate(userIds);
+
+        List<BulkTransactionResultDto> results = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        List<LedgerEntry> postings = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TransactionCreateDto item = chunk.get(i);
+            try {
+                validateBulkItem(item);
+                User user = accounts.get(item.getUserId());
+                if (user == null) {
+                    throw new UserNotFoundException(item.getUserId());
+                }
 
-        // For DEBIT transactions, check if user has sufficient balance
-        if (transactionCreateDto.getType() == TransactionType.DEBIT) {
-            BigDecimal currentBalance = userService.calculateBalance(user.getId());
-            if (currentBalance.compareTo(transactionCreateDto.getAmount()) < 0) {
-                throw new InsufficientBalanceException(
-                    String.format("Insufficient balance. Available: %s, Required: %s",
-                        currentBalance, transactionCreateDto.getAmount()));
+                // Balances are checked before they are changed, so a rejected item leaves no trace
+                Transaction transaction = new Transaction(user, item.getAmount(), item.getType(), item.getDescription());
+                applyToBalances(transaction);
+                postings.addAll(complete(transaction));
+                transactions.add(transaction);
+                results.add(null);
+            } catch (IllegalArgumentException | InsufficientBalanceException | InvalidTransferException
+                     | UserNotFoundException e) {
+                results.add(BulkTransactionResultDto.failed(firstIndex + i, e.getMessage()));
             }
         }
 
-        // Create transaction
-        Transaction transaction = new Transaction();
-        transaction.setUser(user);
-        transaction.setAmount(transactionCreateDto.getAmount());
-        transaction.setType(transactionCreateDto.getType());
-        transaction.setDescription(transactionCreateDto.getDescription());
-        transaction.setStatus(TransactionStatus.PENDING);
+        // Ids come from the pooled sequence, so the inserts are sent as JDBC batches on flush
+        transactionRepository.saveAll(transactions);
+        ledgerEntryRepository.saveAll(postings);
+        transactionRepository.flush();
+
+        Iterator<Transaction> saved = transactions.iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, BulkTransactionResultDto.completed(firstIndex + i, convertToResponseDto(saved.next())));
+            }
+        }
+        return results;
+    }
 
-        Transaction savedTransaction = transactionRepository.save(transaction);
+    private void validateBulkItem(TransactionCreateDto item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Transaction is empty");
+        }
+        Set<ConstraintViolation<TransactionCreateDto>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; ")));
+        }
+        rejectTransferType(item);
+    }
 
-        // Process the transaction immediately (in real app, this might be async)
-        processTransaction(savedTransaction.getId());
+    // A TRANSFER needs a receiver, which only the transfer endpoint accepts
+    private void rejectTransferType(TransactionCreateDto transactionCreateDto) {
+        if (transactionCreateDto.getType() == TransactionType.TRANSFER) {
+            throw new InvalidTransferException("Transfers must be created through /api/transactions/transfer");
+        }
+    }
 
-        Transaction refreshedTransaction = transactionRepository.findById(savedTransaction.getId())
-            .orElseThrow(() -> new TransactionNotFoundException(savedTransaction.getId()));
-        return convertToResponseDto(refreshedTransaction);
+    public boolean isAsyncProcessing() {
+        return processingMode == TransactionProcessingMode.ASYNC;
     }
 
-    public void processTransaction(Long transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
-            .orElseThrow(() -> new TransactionNotFoundException(transactionId));
+    /**
+     * Stores a transaction as PENDING without touching any balance; {@link PendingTransactionProcessor}
+     * applies it later. Only the account's existence is checked here.
+     */
+    public TransactionResponseDto submitTransaction(TransactionCreateDto transactionCreateDto) {
+        return submitTransaction(transactionCreateDto, null);
+    }
 
-        if (transaction.getStatus() != TransactionStatus.PENDING) {
-            throw new IllegalArgumentException("Transaction already processed");
+    // The key is stored in the same transaction as the PENDING row; a replay returns the
+    // response of the first submission, not the transaction's current status
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransactionResponseDto submitTransaction(TransactionCreateDto transactionCreateDto, String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "create", transactionCreateDto, record ->
+            transactionTemplate.execute(status -> record.apply(doSubmitTransaction(transactionCreateDto))));
+    }
+
+    private TransactionResponseDto doSubmitTransaction(TransactionCreateDto transactionCreateDto) {
+        rejectTransferType(transactionCreateDto);
+        User user = userService.findEntityById(transactionCreateDto.getUserId());
+
+        Transaction transaction = new Transaction(user, transactionCreateDto.getAmount(),
+            transactionCreateDto.getType(), transactionCreateDto.getDescription());
+        transactionRepository.save(transaction);
+        return convertToResponseDto(transaction);
+    }
+
+    /**
+     * Claims up to {@code limit} PENDING transactions and applies them in one DB transaction.
+     * A transaction the ledger rejects is marked FAILED without affecting the rest of the batch.
+     *
+     * When the batch fails as a whole it is rolled back and its transactions are retried one by one,
+     * so the others are not held back by the one that broke it. A transaction that fails on its own
+     * is postponed with exponential backoff and marked FAILED after {@code maxProcessingAttempts}.
+     *
+     * @return the number of transactions claimed; 0 when the queue is empty
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int processPendingBatch(int limit) {
+        List<Long> claimedIds = new ArrayList<>(limit);
+        try {
+            return optimisticRetryExecutor.execute("process", () -> transactionTemplate.execute(status -> {
+                List<Transaction> pending = transactionRepository.claimPending(limit, LocalDateTime.now());
+                claimedIds.clear();
+                pending.forEach(transaction -> claimedIds.add(transaction.getId()));
+                applyPending(pending);
+                return pending.size();
+            }));
+        } catch (RuntimeException e) {
+            if (claimedIds.size() <= 1) {
+                recordFailedAttempts(claimedIds, e);
+                return claimedIds.size();
+            }
+            log.warn("Batch of {} pending transactions failed and was rolled back, retrying them one by one",
+                claimedIds.size(), e);
+            for (Long id : claimedIds) {
+                processPendingTransaction(id);
+            }
+            return claimedIds.size();
         }
+    }
 
+    private void processPendingTransaction(Long id) {
         try {
-            User user = transaction.getUser();
-
-            // For DEBIT transactions, check balance again (in case it changed)
-            if (transaction.getType() == TransactionType.DEBIT) {
-                BigDecimal currentBalance = userService.calculateBalance(user.getId());
-                if (currentBalance.compareTo(transaction.getAmount()) < 0) {
-                    transaction.setStatus(TransactionStatus.FAILED);
-                    transaction.setProcessedAt(LocalDateTime.now());
-                    transactionRepository.save(transaction);
-                    throw new InsufficientBalanceException(
-                        String.format("Insufficient balance during processing. Available: %s, Required: %s",
-                            currentBalance, transaction.getAmount()));
-                }
+            optimisticRetryExecutor.execute("process", () -> transactionTemplate.execute(status -> {
+                transactionRepository.claimPendingById(id).ifPresent(transaction -> applyPending(List.of(transaction)));
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            recordFailedAttempts(List.of(id), e);
+        }
+    }
+
+    // Runs in a new DB transaction, the one that failed has been rolled back
+    private void recordFailedAttempts(List<Long> ids, RuntimeException failure) {
+        if (ids.isEmpty()) {
+            throw failure;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long id : ids) {
+                transactionRepository.claimPendingById(id).ifPresent(transaction -> {
+                    int attempts = transaction.getProcessingAttempts() + 1;
+                    transaction.setProcessingAttempts(attempts);
+                    if (attempts >= maxProcessingAttempts) {
+                        log.warn("Pending transaction {} failed {} times, marking it FAILED", id, attempts, failure);
+                        markFailed(transaction);
+                    } else {
+                        long delayMs = retryBackoffMs << Math.min(attempts - 1, 20);
+                        log.info("Pending transaction {} failed, attempt {} of {}, retrying in {} ms: {}",
+                            id, attempts, maxProcessingAttempts, delayMs, failure.getMessage());
+                        transaction.setRetryAt(LocalDateTime.now().plusNanos(delayMs * 1_000_000));
+                    }
+                });
             }
+        });
+    }
 
-            // Mark transaction as completed
-            transaction.setStatus(TransactionStatus.COMPLETED);
-            transaction.setProcessedAt(LocalDateTime.now());
-            transactionRepository.save(transaction);
+    private void applyPending(List<Transaction> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
 
-        } catch (Exception e) {
-            transaction.setStatus(TransactionStatus.FAILED);
-            transaction.setProcessedAt(LocalDateTime.now());
-            transactionRepository.save(transaction);
-            throw e;
+        // Lock every account of the batch up front in ascending id order, so concurrent
+        // batches and single requests cannot deadlock on each other
+        Set<Long> userIds = new TreeSet<>();
+        for (Transaction transaction : pending) {
+            userIds.add(transaction.getUser().getId());
+            if (transaction.getToUser() != null) {
+                userIds.add(transaction.getToUser().getId());
+            }
+        }
+        loadAccountsForUpdate(userIds);
+
+        for (Transaction transaction : pending) {
+            try {
+                completePendingTransaction(transaction);
+            } catch (InsufficientBalanceException e) {
+                log.info("Pending transaction {} failed: {}", transaction.getId(), e.getMessage());
+                markFailed(transaction);
+            }
         }
     }
 
+    private void completePendingTransaction(Transaction transaction) {
+        applyToBalances(transaction);
+
+        // Mark transaction as completed
+        List<LedgerEntry> postings = complete(transaction);
+        transactionRepository.save(transaction);
+        ledgerEntryRepository.saveAll(postings);
+    }
+
+    private void markFailed(Transaction transaction) {
+        transaction.setStatus(TransactionStatus.FAILED);
+        transaction.setProcessedAt(LocalDateTime.now());
+        transactionRepository.save(transaction);
+    }
+
     public Optional<TransactionResponseDto> getTransactionById(Long id) {
-        return transactionRepository.findById(id)
-            .map(this::convertToResponseDto);
+        return transactionRepository.findByIdAsDto(id);
+    }
+
+    public Slice<TransactionResponseDto> getAllTransactions(Pageable pageable, PageTotal total) {
+        return switch (total) {
+            case EXACT -> transactionRepository.findAllAsDto(pageable);
+            case NONE -> transactionRepository.findSliceAsDto(pageable);
+            case APPROXIMATE -> PageTotal.withEstimatedTotal(transactionRepository.findSliceAsDto(pageable),
+                transactionRepository::estimateRowCount, transactionRepository::count);
+        };
     }
 
-    public Page<TransactionResponseDto> getAllTransactions(Pageable pageable) {
-        return transactionRepository.findAll(pageable)
-            .map(this::convertToResponseDto);
+    public Slice<TransactionResponseDto> getTransactionsByUserId(Long userId, Pageable pageable, boolean withTotal) {
+        return withTotal
+            ? transactionRepository.findByUserIdAsDto(userId, pageable)
+            : transactionRepository.findSliceByUserIdAsDto(userId, pageable);
     }
 
-    public Page<TransactionResponseDto> getTransactionsByUserId(Long userId, Pageable pageable) {
-        return transactionRepository.findByUserId(userId, pageable)
-            .map(this::convertToResponseDto);
+    /**
+     * Keyset-paginated listing, newest first. {@code after} is the {@code nextCursor} of the previous
+     * window ({@code <createdAt>,<id>}) or null for the first one. No count query is issued.
+     */
+    public CursorPageDto<TransactionResponseDto> scrollAllTransactions(String after, int size) {
+        Limit limit = Limit.of(size + 1);
+        if (after == null) {
+            return toCursorPage(transactionRepository.findFirstWindow(limit), size);
+        }
+        Cursor cursor = Cursor.parse(after);
+        return toCursorPage(transactionRepository.findWindowAfter(cursor.createdAt(), cursor.id(), limit), size);
+    }
+
+    public CursorPageDto<TransactionResponseDto> scrollTransactionsByUserId(Long userId, String after, int size) {
+        Limit limit = Limit.of(size + 1);
+        if (after == null) {
+            return toCursorPage(transactionRepository.findFirstWindowByUserId(userId, limit), size);
+        }
+        Cursor cursor = Cursor.parse(after);
+        return toCursorPage(transactionRepository.findWindowByUserIdAfter(
+            userId, cursor.createdAt(), cursor.id(), limit), size);
+    }
+
+    // One extra row is fetched to learn whether another window exists
+    private CursorPageDto<TransactionResponseDto> toCursorPage(List<TransactionResponseDto> rows, int size) {
+        if (rows.size() <= size) {
+            return new CursorPageDto<>(rows, false, null);
+        }
+        List<TransactionResponseDto> content = rows.subList(0, size);
+        TransactionResponseDto last = content.get(size - 1);
+        return new CursorPageDto<>(content, true, new Cursor(last.getCreatedAt(), last.getId()).format());
+    }
+
+    private record Cursor(LocalDateTime createdAt, Long id) {
+
+        static Cursor parse(String value) {
+            int separator = value.lastIndexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + value + ". Expected <createdAt>,<id>");
+            }
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value + ". Expected <createdAt>,<id>");
+            }
+        }
+
+        String format() {
+            return createdAt + "," + id;
+        }
     }
 
-    public Page<TransactionResponseDto> getTransactionsByStatus(TransactionStatus status, Pageable pageable) {
-        return transactionRepository.findByStatus(status, pageable)
-            .map(this::convertToResponseDto);
+    public Slice<TransactionResponseDto> getTransactionsByStatus(TransactionStatus status, Pageable pageable,
+                                                                 boolean withTotal) {
+        return withTotal
+            ? transactionRepository.findByStatusAsDto(status, pageable)
+            : transactionRepository.findSliceByStatusAsDto(status, pageable);
     }
 
-    public Page<TransactionResponseDto> getTransactionsByUserIdAndDateRange(
-        Long userId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return transactionRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable)
-            .map(this::convertToResponseDto);
+    public Slice<TransactionResponseDto> getTransactionsByUserIdAndDateRange(
+        Long userId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable, boolean withTotal) {
+        return withTotal
+            ? transactionRepository.findByUserIdAndDateRangeAsDto(userId, startDate, endDate, pageable)
+            : transactionRepository.findSliceByUserIdAndDateRangeAsDto(userId, startDate, endDate, pageable);
     }
 
-    public Page<TransactionResponseDto> getTransactionsByType(TransactionType type, Pageable pageable) {
-        return transactionRepository.findByType(type, pageable)
-            .map(this::convertToResponseDto);
+    public Slice<TransactionResponseDto> getTransactionsByType(TransactionType type, Pageable pageable,
+                                                               boolean withTotal) {
+        return withTotal
+            ? transactionRepository.findByTypeAsDto(type, pageable)
+            : transactionRepository.findSliceByTypeAsDto(type, pageable);
     }
 
-    public Page<TransactionResponseDto> getTransactionsByUserIdAndType(Long userId, TransactionType type, Pageable pageable) {
-        return transactionRepository.findByUserIdAndType(userId, type, pageable)
-            .map(this::convertToResponseDto);
+    public Slice<TransactionResponseDto> getTransactionsByUserIdAndType(Long userId, TransactionType type,
+                                                                        Pageable pageable, boolean withTotal) {
+        return withTotal
+            ? transactionRepository.findByUserIdAndTypeAsDto(userId, type, pageable)
+            : transactionRepository.findSliceByUserIdAndTypeAsDto(userId, type, pageable);
     }
 
-    public Page<TransactionResponseDto> getTransactionsWithFilters(
+    public Slice<TransactionResponseDto> getTransactionsWithFilters(
         Long userId, TransactionType type, TransactionStatus status,
-        LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return transactionRepository.findWithFilters(userId, type, status, startDate, endDate, pageable)
-            .map(this::convertToResponseDto);
+        LocalDateTime startDate, LocalDateTime endDate, Pageable pageable, boolean withTotal) {
+        return transactionRepository.findWithFilters(userId, type, status, startDate, endDate, pageable, withTotal);
     }
 
-    @Transactional
+    // Runs outside of a transaction: STRIPED account locks are taken before a connection is borrowed,
+    // and every retry attempt gets its own DB transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
     public TransactionResponseDto transferMoney(TransferDto transferDto) {
+        return transferMoney(transferDto, null);
+    }
+
+    /**
+     * Same as {@link #transferMoney(TransferDto)}; a repeated idempotency key returns the stored
+     * response without locking or checking either account. The key may be null.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransactionResponseDto transferMoney(TransferDto transferDto, String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "transfer", transferDto, record ->
+            withStripedLock(transferDto.getFromUserId(), transferDto.getToUserId(), () ->
+                optimisticRetryExecutor.execute("transfer",
+                    () -> transactionTemplate.execute(status -> record.apply(doTransferMoney(transferDto))))));
+    }
+
+    private TransactionResponseDto doTransferMoney(TransferDto transferDto) {
         // Validate that fromUserId and toUserId are different
         if (transferDto.getFromUserId().equals(transferDto.getToUserId())) {
             throw new InvalidTransferException("Cannot transfer money to the same user");
@@ -155,76 +533,113 @@ public class TransactionService {
             throw new InvalidTransferException("Transfer amount must be greater than zero");
         }
 
-        // Find both users
-        User fromUser = userService.findEntityById(transferDto.getFromUserId());
-        User toUser = userService.findEntityById(transferDto.getToUserId());
-
-        // Check if sender has sufficient balance
-        BigDecimal senderBalance = userService.calculateBalance(fromUser.getId());
-        if (senderBalance.compareTo(transferDto.getAmount()) < 0) {
-            throw new InsufficientBalanceException(
-                String.format("Insufficient balance for transfer. Available: %s, Required: %s",
-                    senderBalance, transferDto.getAmount()));
+        // Load both accounts in ascending id order so opposite transfers cannot deadlock
+        User fromUser;
+        User toUser;
+        if (transferDto.getFromUserId() < transferDto.getToUserId()) {
+            fromUser = loadAccountForUpdate(transferDto.getFromUserId());
+            toUser = loadAccountForUpdate(transferDto.getToUserId());
+        } else {
+            toUser = loadAccountForUpdate(transferDto.getToUserId());
+            fromUser = loadAccountForUpdate(transferDto.getFromUserId());
         }
 
         // Create single TRANSFER transaction
-        Transaction transferTransaction = new Transaction();
-        transferTransaction.setUser(fromUser);
-        transferTransaction.setToUser(toUser);
-        transferTransaction.setAmount(transferDto.getAmount());
-        transferTransaction.setType(TransactionType.TRANSFER);
-        transferTransaction.setDescription("Transfer from " + fromUser.getFullName() + " to " + toUser.getFullName() +
+        Transaction transferTransaction = new Transaction(fromUser, transferDto.getAmount(), TransactionType.TRANSFER,
+            "Transfer from " + fromUser.getFullName() + " to " + toUser.getFullName() +
             (transferDto.getDescription() != null ? ": " + transferDto.getDescription() : ""));
-        transferTransaction.setStatus(TransactionStatus.PENDING);
-
-        try {
-            // Save transaction
-            Transaction savedTransaction = transactionRepository.save(transferTransaction);
+        transferTransaction.setToUser(toUser);
+        applyToBalances(transferTransaction);
 
-            // Process transaction
-            processTransferTransaction(savedTransaction);
+        // Inserted already COMPLETED with both postings; both balance updates are flushed on commit
+        List<LedgerEntry> postings = complete(transferTransaction);
+        transactionRepository.save(transferTransaction);
+        ledgerEntryRepository.saveAll(postings);
 
-            // Return the completed transaction
-            Transaction refreshedTransaction = transactionRepository.findById(savedTransaction.getId())
-                .orElseThrow(() -> new TransactionNotFoundException(savedTransaction.getId()));
+        return convertToResponseDto(transferTransaction);
+    }
 
-            return convertToResponseDto(refreshedTransaction);
+    /**
+     * Validates the transaction against the stored balances and applies it to them.
+     * The affected accounts must already be loaded through {@link #loadAccountForUpdate(Long)}.
+     */
+    private void applyToBalances(Transaction transaction) {
+        User user = transaction.getUser();
+        BigDecimal amount = transaction.getAmount();
+
+        if (transaction.getType() == TransactionType.CREDIT) {
+            user.setBalance(user.getBalance().add(amount));
+            return;
+        }
 
-        } catch (Exception e) {
-            // Mark transaction as failed if any error occurs
-            transferTransaction.setStatus(TransactionStatus.FAILED);
-            transferTransaction.setProcessedAt(LocalDateTime.now());
-            transactionRepository.save(transferTransaction);
+        // DEBIT and TRANSFER take money from the user
+        BigDecimal currentBalance = user.getBalance();
+        if (currentBalance.compareTo(amount) < 0) {
+            throw new InsufficientBalanceException(
+                String.format("Insufficient balance%s. Available: %s, Required: %s",
+                    transaction.getType() == TransactionType.TRANSFER ? " for transfer" : "",
+                    currentBalance, amount));
+        }
+        user.setBalance(currentBalance.subtract(amount));
 
-            throw new RuntimeException("Transfer failed: " + e.getMessage(), e);
+        if (transaction.getType() == TransactionType.TRANSFER) {
+            User receiver = transaction.getToUser();
+            receiver.setBalance(receiver.getBalance().add(amount));
         }
     }
 
-    private void processTransferTransaction(Transaction transferTransaction) {
-        try {
-            // Verify sender still has sufficient balance
-            BigDecimal senderBalance = userService.calculateBalance(transferTransaction.getUser().getId());
-            if (senderBalance.compareTo(transferTransaction.getAmount()) < 0) {
-                throw new InsufficientBalanceException(
-                    String.format("Insufficient balance during transfer processing. Available: %s, Required: %s",
-                        senderBalance, transferTransaction.getAmount()));
-            }
-
-            // Mark transaction as completed
-            transferTransaction.setStatus(TransactionStatus.COMPLETED);
-            transferTransaction.setProcessedAt(LocalDateTime.now());
-
-            transactionRepository.save(transferTransaction);
+    /**
+     * Marks a transaction that was just applied to the balances as COMPLETED and returns its ledger postings:
+     * one per affected account, signed from that account's point of view. The caller saves them in the same
+     * DB transaction as the balance update.
+     */
+    private List<LedgerEntry> complete(Transaction transaction) {
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setProcessedAt(LocalDateTime.now());
+
+        BigDecimal amount = transaction.getAmount();
+        if (transaction.getType() == TransactionType.CREDIT) {
+            return List.of(new LedgerEntry(transaction, transaction.getUser(), amount));
+        }
+        if (transaction.getType() == TransactionType.TRANSFER) {
+            return List.of(new LedgerEntry(transaction, transaction.getUser(), amount.negate()),
+                new LedgerEntry(transaction, transaction.getToUser(), amount));
+        }
+        return List.of(new LedgerEntry(transaction, transaction.getUser(), amount.negate()));
+    }
 
-        } catch (Exception e) {
-            // Mark transaction as failed
-            transferTransaction.setStatus(TransactionStatus.FAILED);
-            transferTransaction.setProcessedAt(LocalDateTime.now());
+    /**
+     * Runs the action under the in-process locks of the given accounts with the STRIPED strategy,
+     * directly with the others. The second account may be null.
+     */
+    private <T> T withStripedLock(Long accountId, Long otherAccountId, Supplier<T> action) {
+        if (lockingStrategy != AccountLockingStrategy.STRIPED) {
+            return action.get();
+        }
+        return otherAccountId == null
+            ? accountLockManager.withAccountLock(accountId, action)
+            : accountLockManager.withAccountLocks(accountId, otherAccountId, action);
+    }
 
-            transactionRepository.save(transferTransaction);
+    /**
+     * Loads an account whose balance is about to change, protected according to the configured strategy.
+     * Only PESSIMISTIC locks the row up front; OPTIMISTIC and STRIPED check the version column on commit.
+     */
+    private User loadAccountForUpdate(Long userId) {
+        if (lockingStrategy != AccountLockingStrategy.PESSIMISTIC) {
+            return userService.findEntityById(userId);
+        }
+        return userService.findEntityByIdForUpdate(userId);
+    }
 
-            throw e;
+    private Map<Long, User> loadAccountsForUpdate(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
         }
+        List<User> users = lockingStrategy == AccountLockingStrategy.PESSIMISTIC
+            ? userService.findEntitiesByIdForUpdate(userIds)
+            : userService.findEntitiesById(userIds);
+        return users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
     private TransactionResponseDto convertToResponseDto(Transaction transaction) {
@@ -2,20 +2,23 @@ package uz.hayotbank.hbfinancialproduct.service;
 
 import uz.hayotbank.hbfinancialproduct.dto.UserCreateDto;
 import uz.hayotbank.hbfinancialproduct.dto.UserResponseDto;
-import uz.hayotbank.hbfinancialproduct.entity.Transaction;
-import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
-import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
 import uz.hayotbank.hbfinancialproduct.entity.User;
 import uz.hayotbank.hbfinancialproduct.exception.UserNotFoundException;
-import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.BalanceSnapshotRepository;
+import uz.hayotbank.hbfinancialproduct.repository.LedgerEntryRepository;
 import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
-import org.springframework.data.domain.Page;
+import uz.hayotbank.hbfinancialproduct.security.TokenRevocationList;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -23,15 +26,21 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final TransactionRepository transactionRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationList tokenRevocationList;
 
     public UserService(UserRepository userRepository,
-                      TransactionRepository transactionRepository,
-                      PasswordEncoder passwordEncoder) {
+                      LedgerEntryRepository ledgerEntryRepository,
+                      BalanceSnapshotRepository balanceSnapshotRepository,
+                      PasswordEncoder passwordEncoder,
+                      TokenRevocationList tokenRevocationList) {
         this.userRepository = userRepository;
-        this.transactionRepository = transactionRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     public UserResponseDto createUser(UserCreateDto userCreateDto) {
@@ -52,27 +61,40 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(userCreateDto.getPassword()));
 
         User savedUser = userRepository.save(user);
-        return convertToResponseDtoWithCalculatedBalance(savedUser);
+        return convertToResponseDto(savedUser);
     }
 
     public Optional<UserResponseDto> getUserById(Long id) {
         return userRepository.findById(id)
-            .map(this::convertToResponseDtoWithCalculatedBalance);
+            .map(this::convertToResponseDto);
     }
 
     public Optional<UserResponseDto> getUserByUsername(String username) {
         return userRepository.findByUsername(username)
-            .map(this::convertToResponseDtoWithCalculatedBalance);
+            .map(this::convertToResponseDto);
     }
 
-    public Page<UserResponseDto> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable)
-            .map(this::convertToResponseDtoWithCalculatedBalance);
+    public Slice<UserResponseDto> getAllUsers(Pageable pageable, PageTotal total) {
+        Slice<User> users = switch (total) {
+            case EXACT -> userRepository.findAll(pageable);
+            case NONE -> userRepository.findSliceBy(pageable);
+            case APPROXIMATE -> PageTotal.withEstimatedTotal(userRepository.findSliceBy(pageable),
+                userRepository::estimateRowCount, userRepository::count);
+        };
+        return users.map(this::convertToResponseDto);
     }
 
-    public Page<UserResponseDto> searchUsers(String searchTerm, Pageable pageable) {
-        return userRepository.findBySearchTerm(searchTerm, pageable)
-            .map(this::convertToResponseDtoWithCalculatedBalance);
+    public Slice<UserResponseDto> searchUsers(String searchTerm, Pageable pageable, boolean withTotal) {
+        String search = escapeLikePattern(searchTerm);
+        Slice<User> users = withTotal
+            ? userRepository.findBySearchTerm(search, pageable)
+            : userRepository.findSliceBySearchTerm(search, pageable);
+        return users.map(this::convertToResponseDto);
+    }
+
+    // The term is matched literally: '%' and '_' typed by the user are not wildcards
+    private static String escapeLikePattern(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     public UserResponseDto updateUser(Long id, UserCreateDto userCreateDto) {
@@ -96,7 +118,8 @@ public class UserService {
         user.setFullName(userCreateDto.getFullName());
 
         User updatedUser = userRepository.save(user);
-        return convertToResponseDtoWithCalculatedBalance(updatedUser);
+        userRepository.evictUsernamesFromCache();
+        return convertToResponseDto(updatedUser);
     }
 
     public void deleteUser(Long id) {
@@ -104,61 +127,96 @@ public class UserService {
             throw new UserNotFoundException(id);
         }
         userRepository.deleteById(id);
+        userRepository.evictUsernamesFromCache();
+        // In STATELESS auth mode access tokens are not checked against the users table, they stay valid until revoked
+        tokenRevocationList.revokeUser(id);
     }
 
-
-
     public User findEntityById(Long id) {
         return userRepository.findById(id)
             .orElseThrow(() -> new UserNotFoundException(id));
     }
 
+    /**
+     * Loads the user and locks its row until the end of the current transaction.
+     * Must be called before reading the balance that is about to be changed.
+     */
+    public User findEntityByIdForUpdate(Long id) {
+        return userRepository.findByIdForUpdate(id)
+            .orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    /**
+     * Loads and locks several users at once, in ascending id order. Missing ids are simply absent.
+     */
+    public List<User> findEntitiesByIdForUpdate(Collection<Long> ids) {
+        return userRepository.findAllByIdForUpdate(ids);
+    }
+
+    public List<User> findEntitiesById(Collection<Long> ids) {
+        return userRepository.findAllById(ids);
+    }
+
     public User findEntityByUsername(String username) {
         return userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException("username", username));
     }
 
+    /**
+     * Returns the stored running balance of the user. Kept up to date by TransactionService
+     * when transactions are completed, so the cost does not depend on the account history.
+     */
+    public BigDecimal getBalance(Long userId) {
+        return findEntityById(userId).getBalance();
+    }
+
+    /**
+     * Recomputes the balance as the sum of the user's ledger postings.
+     * Used to reconcile the stored balance against the ledger, not on the request path.
+     */
     public BigDecimal calculateBalance(Long userId) {
-        List<Transaction> completedTransactions = transactionRepository
-                .findByUserIdAndStatus(userId, TransactionStatus.COMPLETED);
-
-        BigDecimal balance = BigDecimal.ZERO;
-        for (Transaction transaction : completedTransactions) {
-            if (transaction.getType() == TransactionType.CREDIT) {
-                balance = balance.add(transaction.getAmount());
-            } else if (transaction.getType() == TransactionType.DEBIT) {
-                balance = balance.subtract(transaction.getAmount());
-            } else if (transaction.getType() == TransactionType.TRANSFER) {
-                // For TRANSFER: if user is sender - subtract, if receiver - add
-                if (transaction.getUser().getId().equals(userId)) {
-                    // User is sender (fromUser) - subtract amount
-                    balance = balance.subtract(transaction.getAmount());
-                }
-                // If user is receiver (toUser), amount is added through the paired transaction
-                // where the receiver is the main user of that transaction
-            }
-        }
+        return ledgerEntryRepository.sumByAccountId(userId);
+    }
 
-        // Also check transactions where this user is the receiver (toUser)
-        List<Transaction> receivedTransactions = transactionRepository
-                .findByToUserIdAndStatusAndType(userId, TransactionStatus.COMPLETED, TransactionType.TRANSFER);
+    /**
+     * Balance of the user as of {@code asOf}: the nearest snapshot at or before it plus the postings after
+     * the snapshot, so the cost depends on the snapshot interval rather than on the account history.
+     * Without an old enough snapshot the history up to {@code asOf} is summed.
+     */
+    public BigDecimal balanceAsOf(Long userId, LocalDateTime asOf) {
+        findEntityById(userId);
+        return balanceSnapshotRepository.findFirstByUserIdAndAsOfLessThanEqualOrderByAsOfDesc(userId, asOf)
+            .map(snapshot -> snapshot.getBalance().add(
+                ledgerEntryRepository.sumByAccountIdBetween(userId, snapshot.getAsOf(), asOf)))
+            .orElseGet(() -> ledgerEntryRepository.sumByAccountIdUntil(userId, asOf));
+    }
 
-        for (Transaction transaction : receivedTransactions) {
-            // User is receiver - add amount
-            balance = balance.add(transaction.getAmount());
+    /**
+     * Recomputes the balances of several users with one grouped query.
+     * Every requested id is present in the result; users without completed transactions map to zero.
+     */
+    public Map<Long, BigDecimal> calculateBalances(Collection<Long> userIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return balances;
         }
 
-        return balance;
+        for (Long userId : userIds) {
+            balances.put(userId, BigDecimal.ZERO);
+        }
+        for (LedgerEntryRepository.AccountBalance accountBalance : ledgerEntryRepository.sumByAccountIds(userIds)) {
+            balances.put(accountBalance.getAccountId(), accountBalance.getBalance());
+        }
+        return balances;
     }
 
-    private UserResponseDto convertToResponseDtoWithCalculatedBalance(User user) {
-        BigDecimal calculatedBalance = calculateBalance(user.getId());
+    private UserResponseDto convertToResponseDto(User user) {
         return new UserResponseDto(
             user.getId(),
             user.getUsername(),
             user.getEmail(),
             user.getFullName(),
-            calculatedBalance,
+            user.getBalance(),
             user.getCreatedAt(),
             user.getUpdatedAt()
         );
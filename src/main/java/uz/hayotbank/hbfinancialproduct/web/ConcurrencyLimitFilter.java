@@ -0,0 +1,138 @@
+package uz.hayotbank.hbfinancialproduct.web;
+
+import uz.hayotbank.hbfinancialproduct.dto.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of API requests executing at once.
+ *
+ * With virtual threads Tomcat no longer bounds concurrency by its thread pool, so thousands of requests
+ * could pile up waiting for one of the Hikari connections. Requests over the limit wait briefly for a
+ * permit and are rejected with 503 after that, instead of timing out on the pool.
+ * Runs before Spring Security, because authentication already reads the user from the database.
+ *
+ * An asynchronous response (streamed exports, NDJSON history, 202 bulk ingestion) keeps its permit until
+ * the async processing completes, since that is when it actually holds a connection. The async dispatches
+ * themselves are not filtered again, so such a request takes exactly one permit.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnProperty(name = "application.web.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(@Value("${application.web.concurrency-limit.max-concurrent-requests:40}") int maxConcurrentRequests,
+                                  @Value("${application.web.concurrency-limit.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("http.server.requests.rejected")
+            .description("Requests rejected by the concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("http.server.requests.in.flight", permits,
+                semaphore -> maxConcurrentRequests - semaphore.availablePermits())
+            .description("API requests currently holding a concurrency permit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            reject(request, response);
+            return;
+        }
+
+        boolean releasedOnAsyncCompletion = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+                releasedOnAsyncCompletion = true;
+            }
+        } finally {
+            if (!releasedOnAsyncCompletion) {
+                permits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponseDto errorResponse = new ErrorResponseDto(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service Unavailable",
+            "Server is busy, please retry",
+            request.getRequestURI()
+        );
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    // The container always calls onComplete last, also after a timeout or an error
+    private class ReleaseOnCompletion implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the new async cycle, a listener is dropped when startAsync is called again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
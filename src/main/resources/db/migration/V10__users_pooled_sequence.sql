@@ -0,0 +1,3 @@
+-- User ids are now allocated by Hibernate in blocks of 50 (pooled-lo), like transaction ids since V9
+-- The column default keeps working for plain SQL inserts
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
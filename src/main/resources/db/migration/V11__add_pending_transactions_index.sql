@@ -0,0 +1,2 @@
+-- Lets the asynchronous processor find PENDING rows without scanning the whole table
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions(id) WHERE status = 'PENDING';
@@ -0,0 +1,9 @@
+-- Keyset pagination orders by (created_at, id) and seeks with a row comparison on the same pair,
+-- so both listings are served by an index range scan without sorting
+
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at_id ON transactions(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created_at_id ON transactions(user_id, created_at, id);
+
+-- Superseded by the indexes above
+DROP INDEX IF EXISTS idx_transactions_created_at_new;
+DROP INDEX IF EXISTS idx_transactions_user_created;
@@ -0,0 +1,9 @@
+-- Indexes for the common combinations of the /api/transactions/filter endpoint.
+-- The filter query only contains the given predicates, so each combination can use its own index
+-- and return rows already in created_at order
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_status_created_at ON transactions(user_id, status, created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_type_created_at ON transactions(type, created_at);
+
+-- Its only column is the prefix of idx_transactions_type_created_at
+DROP INDEX IF EXISTS idx_transactions_type;
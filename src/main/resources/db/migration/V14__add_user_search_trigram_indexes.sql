@@ -0,0 +1,8 @@
+-- User search matches substrings anywhere in username, full_name and email. A B-tree cannot serve
+-- '%term%', a trigram GIN index can (for LIKE and ILIKE alike), so search no longer scans the table
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (username gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (full_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (email gin_trgm_ops);
@@ -0,0 +1,14 @@
+-- Idempotency-Key of POST /api/transactions and /api/transactions/transfer. The key row is inserted
+-- in the same DB transaction as the posting, so the primary key turns a concurrent retry into a
+-- unique violation instead of a second posting. The response is stored as sent, a replay is
+-- answered from this table alone
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    transaction_id BIGINT NOT NULL REFERENCES transactions(id) ON DELETE CASCADE,
+    response TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_idempotency_keys_transaction_id ON idempotency_keys(transaction_id);
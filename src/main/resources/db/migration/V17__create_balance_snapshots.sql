@@ -0,0 +1,16 @@
+-- Balance of an account as of a point in time: the sum of its ledger postings with created_at <= as_of.
+-- A historical balance starts from the nearest earlier snapshot and only sums the postings after it.
+-- BalanceSnapshotJob writes a row per run for the accounts that had postings since the previous run;
+-- for the others the previous snapshot is still current
+
+CREATE TABLE balance_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    as_of TIMESTAMP NOT NULL,
+    balance DECIMAL(15,2) NOT NULL,
+    CONSTRAINT uk_balance_snapshots_user_as_of UNIQUE (user_id, as_of)
+);
+
+-- The job sums the postings of a time window across all accounts. Postings are appended in created_at
+-- order, so a BRIN index narrows that to the recent blocks at almost no cost per insert
+CREATE INDEX idx_ledger_entries_created_at_brin ON ledger_entries USING brin (created_at);
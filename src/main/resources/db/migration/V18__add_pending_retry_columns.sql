@@ -0,0 +1,5 @@
+-- A PENDING transaction that fails on its own is retried with a growing delay and marked FAILED
+-- after application.transactions.async.max-attempts, instead of being claimed again forever
+ALTER TABLE transactions
+    ADD COLUMN processing_attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN retry_at TIMESTAMP;
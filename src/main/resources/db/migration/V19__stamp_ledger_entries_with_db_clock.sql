@@ -0,0 +1,5 @@
+-- Postings are stamped by the database with the start time of their transaction. A transaction that is
+-- still open therefore shows up in pg_stat_activity with an xact_start no later than any posting it can
+-- still commit, which is the bound BalanceSnapshotJob snapshots up to
+
+ALTER TABLE ledger_entries ALTER COLUMN created_at SET DEFAULT LOCALTIMESTAMP;
@@ -0,0 +1,17 @@
+-- Make users.balance the authoritative running balance
+-- Recompute the stored balance of every user from the completed transactions
+
+UPDATE users u
+SET balance = COALESCE((
+    SELECT SUM(CASE
+                   WHEN t.type = 'CREDIT' THEN t.amount
+                   WHEN t.type = 'DEBIT' THEN -t.amount
+                   WHEN t.type = 'TRANSFER' THEN -t.amount
+               END)
+    FROM transactions t
+    WHERE t.user_id = u.id AND t.status = 'COMPLETED'
+), 0) + COALESCE((
+    SELECT SUM(t.amount)
+    FROM transactions t
+    WHERE t.to_user_id = u.id AND t.type = 'TRANSFER' AND t.status = 'COMPLETED'
+), 0);
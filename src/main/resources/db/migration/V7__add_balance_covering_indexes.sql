@@ -0,0 +1,7 @@
+-- Covering indexes for the balance aggregation query
+-- Both branches of TransactionRepository.sumCompletedBalance can be answered by index-only scans
+
+CREATE INDEX idx_transactions_balance ON transactions(user_id, status, type, amount);
+
+CREATE INDEX idx_transactions_to_user_balance ON transactions(to_user_id, status, type, amount)
+    WHERE to_user_id IS NOT NULL;
@@ -0,0 +1,2 @@
+-- Optimistic locking support for balance updates
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- Transaction ids are now allocated by Hibernate in blocks of 50 from the existing BIGSERIAL sequence
+-- The column default keeps working for plain SQL inserts
+
+-- V2 rebuilt the table as transactions_new, so its sequence still carries that name
+ALTER SEQUENCE transactions_new_id_seq RENAME TO transactions_id_seq;
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
@@ -0,0 +1,119 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import uz.hayotbank.hbfinancialproduct.service.AccountLockManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput of balance updates under a Zipfian (skewed) account distribution, with and without
+ * the in-process striped lock in front of the DB.
+ *
+ * The DB side is simulated: a semaphore of 20 permits stands for the Hikari pool and a per-account
+ * lock held for a fixed time stands for the row lock and statement latency. Without the striped lock
+ * a request borrows a connection first and then waits for the row, so hot accounts drain the pool.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AccountLockBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int POOL_SIZE = 20;
+    private static final long ROW_WORK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    @Param({"0.8", "1.1", "1.5"})
+    private double zipfExponent;
+
+    private double[] cumulative;
+    private Semaphore connectionPool;
+    private ConcurrentHashMap<Long, ReentrantLock> rowLocks;
+    private AccountLockManager accountLockManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cumulative = zipfCumulative(ACCOUNTS, zipfExponent);
+        connectionPool = new Semaphore(POOL_SIZE, true);
+        rowLocks = new ConcurrentHashMap<>();
+        accountLockManager = new AccountLockManager(1024, 60_000);
+    }
+
+    @Benchmark
+    public void dbLockOnly() throws InterruptedException {
+        updateBalanceInDb(nextAccount());
+    }
+
+    @Benchmark
+    public void stripedLockThenDb() {
+        long accountId = nextAccount();
+        accountLockManager.withAccountLock(accountId, () -> {
+            try {
+                updateBalanceInDb(accountId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+    }
+
+    private void updateBalanceInDb(long accountId) throws InterruptedException {
+        connectionPool.acquire();
+        try {
+            ReentrantLock rowLock = rowLocks.computeIfAbsent(accountId, id -> new ReentrantLock());
+            rowLock.lock();
+            try {
+                LockSupport.parkNanos(ROW_WORK_NANOS);
+            } finally {
+                rowLock.unlock();
+            }
+        } finally {
+            connectionPool.release();
+        }
+    }
+
+    private long nextAccount() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low + 1L;
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccountLockBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
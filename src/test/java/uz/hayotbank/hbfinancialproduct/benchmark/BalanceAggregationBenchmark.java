@@ -0,0 +1,128 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways the balance has been recomputed from history: two lists of completed transactions
+ * folded in Java, the two-branch aggregate over transactions (with the covering indexes it had), and
+ * the sum of ledger postings used by LedgerEntryRepository.sumByAccountId.
+ *
+ * Requires Docker. Run with: mvn test-compile, then start main() from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BalanceAggregationBenchmark {
+
+    private static final String OWN_TRANSACTIONS_SQL =
+        "SELECT type, amount FROM transactions WHERE user_id = ? AND status = 'COMPLETED'";
+
+    private static final String RECEIVED_TRANSFERS_SQL =
+        "SELECT type, amount FROM transactions WHERE to_user_id = ? AND status = 'COMPLETED' AND type = 'TRANSFER'";
+
+    private static final String AGGREGATE_SQL = "SELECT COALESCE(SUM(d.delta), 0) FROM (" +
+        "SELECT CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END AS delta " +
+        "FROM transactions t WHERE t.user_id = ? AND t.status = 'COMPLETED' " +
+        "UNION ALL " +
+        "SELECT t.amount FROM transactions t " +
+        "WHERE t.to_user_id = ? AND t.status = 'COMPLETED' AND t.type = 'TRANSFER'" +
+        ") d";
+
+    private static final String LEDGER_SQL = "SELECT COALESCE(SUM(amount), 0) FROM ledger_entries WHERE account_id = ?";
+
+    @Param({"10000", "100000", "1000000"})
+    private int rowsPerUser;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase();
+        connection = database.openConnection();
+        userId = BenchmarkData.insertUser(connection, "bench_user");
+        long counterpartyId = BenchmarkData.insertUser(connection, "bench_counterparty");
+        BenchmarkData.insertTransactions(connection, userId, counterpartyId, rowsPerUser);
+        BenchmarkData.insertPostings(connection);
+        // The ledger migration dropped these; without them aggregateQuery would not be measured as it ran
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_transactions_balance ON transactions(user_id, status, type, amount)");
+            statement.execute("CREATE INDEX idx_transactions_to_user_balance ON transactions(to_user_id, status, type, amount) " +
+                "WHERE to_user_id IS NOT NULL");
+        }
+        database.vacuumAnalyze();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public BigDecimal twoListFold() throws SQLException {
+        BigDecimal balance = BigDecimal.ZERO;
+        try (PreparedStatement statement = connection.prepareStatement(OWN_TRANSACTIONS_SQL)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal amount = rs.getBigDecimal("amount");
+                    balance = "CREDIT".equals(rs.getString("type")) ? balance.add(amount) : balance.subtract(amount);
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(RECEIVED_TRANSFERS_SQL)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    balance = balance.add(rs.getBigDecimal("amount"));
+                }
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public BigDecimal aggregateQuery() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(AGGREGATE_SQL)) {
+            statement.setLong(1, userId);
+            statement.setLong(2, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal ledgerSum() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LEDGER_SQL)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BalanceAggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
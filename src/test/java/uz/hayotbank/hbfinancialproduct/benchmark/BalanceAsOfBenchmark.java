@@ -0,0 +1,120 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance at a past point in time: summing every posting up to it versus the nearest daily snapshot
+ * plus the postings made after the snapshot, as UserService.balanceAsOf does.
+ *
+ * Requires Docker. Run with: mvn test-compile, then start main() from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BalanceAsOfBenchmark {
+
+    private static final String FULL_HISTORY_SQL =
+        "SELECT COALESCE(SUM(amount), 0) FROM ledger_entries WHERE account_id = ? AND created_at <= ?";
+
+    private static final String SNAPSHOT_SQL =
+        "SELECT as_of, balance FROM balance_snapshots WHERE user_id = ? AND as_of <= ? ORDER BY as_of DESC LIMIT 1";
+
+    private static final String DELTA_SQL =
+        "SELECT COALESCE(SUM(amount), 0) FROM ledger_entries WHERE account_id = ? AND created_at > ? AND created_at <= ?";
+
+    // One snapshot per account and day, taken just before midnight, as the job would with a daily cron
+    private static final String DAILY_SNAPSHOTS_SQL =
+        "INSERT INTO balance_snapshots (user_id, as_of, balance) " +
+        "SELECT account_id, day + INTERVAL '1 day' - INTERVAL '1 microsecond', " +
+        "       SUM(SUM(amount)) OVER (PARTITION BY account_id ORDER BY day) " +
+        "FROM (SELECT account_id, date_trunc('day', created_at) AS day, amount FROM ledger_entries) e " +
+        "GROUP BY account_id, day";
+
+    @Param({"100000", "1000000"})
+    private int rowsPerUser;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+    private long userId;
+    private Timestamp asOf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase();
+        connection = database.openConnection();
+        userId = BenchmarkData.insertUser(connection, "bench_user");
+        long counterpartyId = BenchmarkData.insertUser(connection, "bench_counterparty");
+        BenchmarkData.insertTransactions(connection, userId, counterpartyId, rowsPerUser);
+        BenchmarkData.insertPostings(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(DAILY_SNAPSHOTS_SQL);
+        }
+        database.vacuumAnalyze();
+        // A recent point in time in the middle of a day, so the delta covers roughly half a day of postings
+        asOf = Timestamp.valueOf(LocalDateTime.now().minusDays(1).withHour(12));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public BigDecimal fullHistorySum() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(FULL_HISTORY_SQL)) {
+            statement.setLong(1, userId);
+            statement.setTimestamp(2, asOf);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal snapshotPlusDelta() throws SQLException {
+        Timestamp snapshotAt;
+        BigDecimal balance;
+        try (PreparedStatement statement = connection.prepareStatement(SNAPSHOT_SQL)) {
+            statement.setLong(1, userId);
+            statement.setTimestamp(2, asOf);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                snapshotAt = rs.getTimestamp("as_of");
+                balance = rs.getBigDecimal("balance");
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELTA_SQL)) {
+            statement.setLong(1, userId);
+            statement.setTimestamp(2, snapshotAt);
+            statement.setTimestamp(3, asOf);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return balance.add(rs.getBigDecimal(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BalanceAsOfBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Bulk seeding helpers for the benchmarks. Rows are generated server-side with generate_series.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    static long insertUser(Connection connection, String username) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (username, email, full_name, balance) VALUES (?, ?, ?, 0) RETURNING id")) {
+            statement.setString(1, username);
+            statement.setString(2, username + "@example.com");
+            statement.setString(3, username);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Inserts {@code count} completed transactions for the user spread over the last years:
+     * 50% CREDIT, 30% DEBIT, 10% outgoing TRANSFER to the counterparty, 10% incoming TRANSFER from it.
+     */
+    static void insertTransactions(Connection connection, long userId, long counterpartyId, int count)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO transactions (user_id, to_user_id, amount, type, description, status, created_at, processed_at) " +
+                "SELECT CASE WHEN g % 10 = 9 THEN ? ELSE ? END, " +
+                "       CASE WHEN g % 10 = 8 THEN ? WHEN g % 10 = 9 THEN ? END, " +
+                "       (g % 500) + 1, " +
+                "       CASE WHEN g % 10 < 5 THEN 'CREDIT' WHEN g % 10 < 8 THEN 'DEBIT' ELSE 'TRANSFER' END, " +
+                "       'Benchmark transaction ' || g, 'COMPLETED', " +
+                "       NOW() - (? - g) * INTERVAL '1 minute', NOW() - (? - g) * INTERVAL '1 minute' " +
+                "FROM generate_series(1, ?) AS g")) {
+            statement.setLong(1, counterpartyId);
+            statement.setLong(2, userId);
+            statement.setLong(3, counterpartyId);
+            statement.setLong(4, userId);
+            statement.setInt(5, count);
+            statement.setInt(6, count);
+            statement.setInt(7, count);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Inserts the ledger postings of all completed transactions, the same way the V16 migration backfills them.
+     */
+    static void insertPostings(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO ledger_entries (transaction_id, account_id, amount, created_at) " +
+                "SELECT t.id, t.user_id, CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END, t.processed_at " +
+                "FROM transactions t WHERE t.status = 'COMPLETED' " +
+                "UNION ALL " +
+                "SELECT t.id, t.to_user_id, t.amount, t.processed_at " +
+                "FROM transactions t WHERE t.status = 'COMPLETED' AND t.type = 'TRANSFER'")) {
+            statement.executeUpdate();
+        }
+    }
+}
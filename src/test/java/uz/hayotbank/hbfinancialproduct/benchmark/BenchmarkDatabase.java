@@ -0,0 +1,51 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Disposable PostgreSQL instance for the JMH benchmarks, migrated with the application's Flyway scripts
+ * so that benchmarks run against the real schema and indexes.
+ */
+class BenchmarkDatabase implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> container;
+
+    BenchmarkDatabase() {
+        container = new PostgreSQLContainer<>("postgres:15-alpine");
+        container.start();
+
+        Flyway.configure()
+                .dataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    String getJdbcUrl() { return container.getJdbcUrl(); }
+    String getUsername() { return container.getUsername(); }
+    String getPassword() { return container.getPassword(); }
+
+    /**
+     * Refreshes planner statistics and the visibility map after bulk seeding, so index-only scans are possible.
+     */
+    void vacuumAnalyze() throws SQLException {
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @Override
+    public void close() {
+        container.stop();
+    }
+}
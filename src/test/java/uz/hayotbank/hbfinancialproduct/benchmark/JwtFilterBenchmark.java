@@ -0,0 +1,107 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import uz.hayotbank.hbfinancialproduct.security.AuthMode;
+import uz.hayotbank.hbfinancialproduct.security.JwtAuthenticationFilter;
+import uz.hayotbank.hbfinancialproduct.security.JwtUtil;
+import uz.hayotbank.hbfinancialproduct.security.TokenRevocationList;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a bearer token into claims on every request.
+ *
+ * legacyKeyAndParserPerCall reproduces the previous JwtUtil: validateJwtToken and getUserNameFromJwtToken
+ * each rebuilt the HMAC key and the parser and verified the token, i.e. twice per request.
+ * The other benchmarks use the current JwtUtil: one verification with the shared parser when the token
+ * is new, a cache lookup when the same token comes again. filterRepeatedToken runs the whole
+ * JwtAuthenticationFilter in STATELESS mode.
+ *
+ * Needs no database. Run with: mvn test-compile, then start main() from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyForJWTTokenGenerationThatIsLongEnoughForSecurity123456789";
+    private static final int DISTINCT_TOKENS = 100_000;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String[] tokens;
+    private String repeatedToken;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The verified-token cache is far smaller than the token pool, so cycling through the pool always misses
+        jwtUtil = new JwtUtil(SECRET, 3_600_000, 604_800_000, 1_000);
+        filter = new JwtAuthenticationFilter(jwtUtil, username -> {
+            throw new IllegalStateException("STATELESS mode must not load the user");
+        }, new TokenRevocationList(3_600_000, 1_000), AuthMode.STATELESS);
+
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = jwtUtil.generateJwtToken((long) i, "user" + i, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        }
+        repeatedToken = tokens[0];
+    }
+
+    @Benchmark
+    public String legacyKeyAndParserPerCall() {
+        String token = nextToken();
+        // validateJwtToken
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseClaimsJws(token);
+        // getUserNameFromJwtToken
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+            .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String sharedParserNewToken() {
+        return jwtUtil.getVerifiedClaims(nextToken()).getSubject();
+    }
+
+    @Benchmark
+    public String cachedRepeatedToken() {
+        return jwtUtil.getVerifiedClaims(repeatedToken).getSubject();
+    }
+
+    @Benchmark
+    public Object filterRepeatedToken() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/transactions/user/1");
+        request.addHeader("Authorization", "Bearer " + repeatedToken);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    private String nextToken() {
+        next = (next + 1) % DISTINCT_TOKENS;
+        return tokens[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package uz.hayotbank.hbfinancialproduct.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts 100k transactions the way Hibernate does with each id generation strategy:
+ * IDENTITY executes every insert on its own to read the generated id back, while the pooled-lo
+ * sequence fetches one id per 50 rows and sends the inserts as JDBC batches of hibernate.jdbc.batch_size.
+ *
+ * Requires Docker. Run with: mvn test-compile, then start main() from the IDE.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class TransactionInsertBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int JDBC_BATCH_SIZE = 20;
+
+    private static final String IDENTITY_INSERT_SQL =
+        "INSERT INTO transactions (user_id, amount, type, description, status, created_at, processed_at) " +
+        "VALUES (?, ?, 'CREDIT', ?, 'COMPLETED', ?, ?) RETURNING id";
+
+    private static final String SEQUENCE_INSERT_SQL =
+        "INSERT INTO transactions (id, user_id, amount, type, description, status, created_at, processed_at) " +
+        "VALUES (?, ?, ?, 'CREDIT', ?, 'COMPLETED', ?, ?)";
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase();
+        connection = database.openConnection();
+        userId = BenchmarkData.insertUser(connection, "bench_user");
+        connection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE transactions");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public long identityPerRow() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement statement = connection.prepareStatement(IDENTITY_INSERT_SQL)) {
+            for (int i = 0; i < ROWS; i++) {
+                bindRow(statement, 1, i);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public long pooledSequenceBatched() throws SQLException {
+        long nextId = 0;
+        long highId = 0;
+        try (PreparedStatement sequence = connection.prepareStatement("SELECT nextval('transactions_id_seq')");
+             PreparedStatement statement = connection.prepareStatement(SEQUENCE_INSERT_SQL)) {
+            for (int i = 0; i < ROWS; i++) {
+                // pooled-lo: the sequence value is the first id of a block of ALLOCATION_SIZE ids
+                if (nextId == highId) {
+                    try (ResultSet rs = sequence.executeQuery()) {
+                        rs.next();
+                        nextId = rs.getLong(1);
+                        highId = nextId + ALLOCATION_SIZE;
+                    }
+                }
+                statement.setLong(1, nextId++);
+                bindRow(statement, 2, i);
+                statement.addBatch();
+                if ((i + 1) % JDBC_BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+        return nextId;
+    }
+
+    private void bindRow(PreparedStatement statement, int firstParameter, int row) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        statement.setLong(firstParameter, userId);
+        statement.setBigDecimal(firstParameter + 1, BigDecimal.valueOf(row % 500 + 1));
+        statement.setString(firstParameter + 2, "Benchmark transaction " + row);
+        statement.setTimestamp(firstParameter + 3, now);
+        statement.setTimestamp(firstParameter + 4, now);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -21,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -57,6 +58,7 @@ class TransactionControllerIntegrationTest {
         testUser.setEmail("test@example.com");
         testUser.setFullName("Test User");
         testUser.setPassword("password123");
+        testUser.setBalance(new BigDecimal("1000.00"));
         testUser = userRepository.save(testUser);
 
         // Create a completed credit transaction to give user balance
@@ -185,4 +187,113 @@ class TransactionControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    void createTransactionsInBulk_ReportsPartialFailures() throws Exception {
+        List<TransactionCreateDto> items = List.of(
+            new TransactionCreateDto(testUser.getId(), new BigDecimal("100.00"), TransactionType.CREDIT, "Payroll"),
+            new TransactionCreateDto(testUser.getId(), new BigDecimal("5000.00"), TransactionType.DEBIT, "Too much"),
+            new TransactionCreateDto(-1L, new BigDecimal("10.00"), TransactionType.CREDIT, "Unknown user"),
+            new TransactionCreateDto(testUser.getId(), new BigDecimal("1100.00"), TransactionType.DEBIT, "Settlement"));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.completed").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[2].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[3].transaction.amount").value(1100.00));
+    }
+
+    @Test
+    @WithMockUser
+    void createTransactionsInBulk_NullItemFailsOnItsOwn() throws Exception {
+        String item = objectMapper.writeValueAsString(
+            new TransactionCreateDto(testUser.getId(), new BigDecimal("10.00"), TransactionType.CREDIT, "Payroll"));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + item + ", null, " + item + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.completed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].error").value("Transaction is empty"))
+                .andExpect(jsonPath("$.results[2].status").value("COMPLETED"));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("null\n" + item + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].status").value("COMPLETED"));
+    }
+
+    @Test
+    @WithMockUser
+    void createTransactionsInBulk_Ndjson_StopsAtMalformedLine() throws Exception {
+        String body = objectMapper.writeValueAsString(
+                new TransactionCreateDto(testUser.getId(), new BigDecimal("10.00"), TransactionType.CREDIT, "First"))
+            + "\n{not json\n";
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"));
+    }
+
+    @Test
+    @WithMockUser
+    void scrollTransactionsByUserId_FollowsCursorToLastWindow() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            Transaction transaction = new Transaction(testUser, new BigDecimal("10.00"), TransactionType.CREDIT, "Scroll " + i);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transactionRepository.save(transaction);
+        }
+
+        String firstWindow = mockMvc.perform(get("/api/transactions/user/{userId}/scroll", testUser.getId())
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstWindow).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/transactions/user/{userId}/scroll", testUser.getId())
+                .param("size", "2")
+                .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content[0].id").value(testTransaction.getId()));
+    }
+
+    @Test
+    @WithMockUser
+    void scrollAllTransactions_RejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/transactions/scroll")
+                .param("after", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void getTransactionsByUserId_WithoutTotal_ReturnsSlice() throws Exception {
+        mockMvc.perform(get("/api/transactions/user/{userId}", testUser.getId())
+                .param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.last").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+}
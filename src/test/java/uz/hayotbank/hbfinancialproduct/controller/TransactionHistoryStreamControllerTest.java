@@ -0,0 +1,137 @@
+package uz.hayotbank.hbfinancialproduct.controller;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import uz.hayotbank.hbfinancialproduct.security.JwtUtil;
+import uz.hayotbank.hbfinancialproduct.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the R2DBC read path end to end over HTTP. The test profile has no R2DBC URL for the
+ * Testcontainers JDBC database, so this test starts its own container and points both JDBC and R2DBC at it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+class TransactionHistoryStreamControllerTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("application.r2dbc.enabled", () -> "true");
+        registry.add("application.r2dbc.url", () -> "r2dbc:postgresql://" + postgres.getHost() + ":"
+            + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName());
+        registry.add("application.r2dbc.username", postgres::getUsername);
+        registry.add("application.r2dbc.password", postgres::getPassword);
+        // Small fetches, so the stream spans several round trips to the database
+        registry.add("application.r2dbc.fetch-size", () -> "2");
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new User("streamuser", "stream@example.com", "Stream User"));
+    }
+
+    @Test
+    void streamTransactionsByUserId_StreamsNewestFirstAndCompletes() throws Exception {
+        List<TransactionResponseDto> created = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            created.add(transactionService.createTransaction(new TransactionCreateDto(
+                testUser.getId(), new BigDecimal(i + ".00"), TransactionType.CREDIT, "Deposit " + i)));
+        }
+
+        ResponseEntity<String> response = get("/api/transactions/user/" + testUser.getId() + "/stream?limit=4");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(response.getHeaders().getContentType()));
+        // The whole body arrived, so the stream completed; limit cuts off the oldest transaction
+        String[] lines = response.getBody().split("\n");
+        assertEquals(4, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            TransactionResponseDto expected = created.get(created.size() - 1 - i);
+            TransactionResponseDto actual = objectMapper.readValue(lines[i], TransactionResponseDto.class);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(0, expected.getAmount().compareTo(actual.getAmount()));
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals("Stream User", actual.getUserName());
+            assertEquals(expected.getStatus(), actual.getStatus());
+        }
+    }
+
+    @Test
+    void streamTransactionsByUserId_UnknownUserReturnsNotFound() {
+        ResponseEntity<String> response = get("/api/transactions/user/999999/stream");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void streamTransactions_LimitOutOfRangeReturnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/transactions/user/" + testUser.getId() + "/stream?limit=-1").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/transactions/user/" + testUser.getId() + "/stream?limit=0").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/transactions/filter/stream?limit=10001").getStatusCode());
+    }
+
+    private ResponseEntity<String> get(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateJwtToken(testUser.getId(), testUser.getUsername(),
+            List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -111,6 +111,36 @@ class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
+    @Test
+    @WithMockUser
+    void searchUsers_MatchesSubstringIgnoringCase() throws Exception {
+        User other = new User();
+        other.setUsername("otheruser");
+        other.setEmail("other@example.com");
+        other.setFullName("Another Tester");
+        userRepository.save(other);
+        userRepository.flush();
+
+        mockMvc.perform(get("/api/users/search")
+                .param("searchTerm", "TESTUSER"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].username").value("testuser"));
+
+        // Both match; the closer one by trigram similarity comes first
+        mockMvc.perform(get("/api/users/search")
+                .param("searchTerm", "test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].username").value("testuser"));
+
+        // Wildcards typed by the user are matched literally
+        mockMvc.perform(get("/api/users/search")
+                .param("searchTerm", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
     @Test
     @WithMockUser
     void updateUser_Success() throws Exception {
@@ -0,0 +1,184 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every common filter combination is served by its index, using the SQL Hibernate actually
+ * generates. The statement is captured by a StatementInspector and explained as a prepared statement with
+ * a forced generic plan, the plan Postgres settles on for a statement executed with bind parameters.
+ * A catch-all {@code (? IS NULL OR col = ?)} query gets one plan for all filters here, a created_at index
+ * scan that filters every row, so the index expected for the given filters would not show up.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class TransactionFilterIndexTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 11, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 12, 1, 0, 0);
+    private static final PageRequest PAGE = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+
+    private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        @Bean
+        HibernatePropertiesCustomizer capturingStatementInspector() {
+            StatementInspector inspector = sql -> {
+                statements.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        jdbcTemplate.update("INSERT INTO users (username, email, full_name, balance) " +
+            "SELECT 'filter_user_' || g, 'filter_user_' || g || '@example.com', 'Filter User ' || g, 0 " +
+            "FROM generate_series(1, 100) g");
+        userId = jdbcTemplate.queryForObject("SELECT min(id) FROM users", Long.class);
+
+        // 100k rows over 100 users: 2% TRANSFER, 3% FAILED, one row per minute going back in time
+        // User ids are not contiguous (the sequence hands out blocks), so users are numbered first
+        jdbcTemplate.update("INSERT INTO transactions (user_id, amount, type, description, status, created_at) " +
+            "WITH numbered AS (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n FROM users) " +
+            "SELECT numbered.id, 10.00, " +
+            "CASE WHEN g % 50 = 0 THEN 'TRANSFER' WHEN g % 2 = 0 THEN 'CREDIT' ELSE 'DEBIT' END, " +
+            "'Filter row ' || g, " +
+            "CASE WHEN g % 33 = 0 THEN 'FAILED' ELSE 'COMPLETED' END, " +
+            "TIMESTAMP '2025-01-01 00:00:00' - g * INTERVAL '1 minute' " +
+            "FROM generate_series(1, 100000) g JOIN numbered ON numbered.n = g % 100");
+        jdbcTemplate.execute("ANALYZE transactions");
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void userOnly_UsesUserCreatedAtIndex() {
+        assertGenericPlanUses("idx_transactions_user_created_at_id", captureSql(() ->
+            transactionRepository.findWithFilters(userId, null, null, null, null, PAGE, false)));
+    }
+
+    @Test
+    void userStatusAndDateRange_UsesUserStatusCreatedAtIndex() {
+        assertGenericPlanUses("idx_transactions_user_status_created_at", captureSql(() ->
+            transactionRepository.findWithFilters(userId, null, TransactionStatus.FAILED, FROM, TO, PAGE, false)));
+    }
+
+    @Test
+    void typeAndDateRange_UsesTypeCreatedAtIndex() {
+        assertGenericPlanUses("idx_transactions_type_created_at", captureSql(() ->
+            transactionRepository.findWithFilters(null, TransactionType.TRANSFER, null, FROM, TO, PAGE, false)));
+    }
+
+    @Test
+    void dateRangeOnly_UsesCreatedAtIndex() {
+        assertGenericPlanUses("idx_transactions_created_at_id", captureSql(() ->
+            transactionRepository.findWithFilters(null, null, null, FROM, TO, PAGE, false)));
+    }
+
+    @Test
+    void exportWithDateRange_UsesUserCreatedAtIndex() {
+        assertGenericPlanUses("idx_transactions_user_created_at_id", captureSql(() ->
+            transactionTemplate.execute(status -> {
+                try (Stream<?> rows = transactionRepository.streamForExport(userId, FROM, TO)) {
+                    return rows.count();
+                }
+            })));
+    }
+
+    private String captureSql(Runnable query) {
+        statements.clear();
+        query.run();
+        return statements.stream()
+            .filter(sql -> sql.contains("from transactions"))
+            .reduce((first, second) -> second)
+            .orElseThrow(() -> new AssertionError("No statement on transactions captured: " + statements));
+    }
+
+    private void assertGenericPlanUses(String index, String sql) {
+        // Postgres numbers its parameters; the generated SQL contains no literal question marks
+        StringBuilder numbered = new StringBuilder();
+        StringJoiner nulls = new StringJoiner(", ", "(", ")");
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+                nulls.add("NULL");
+            } else {
+                numbered.append(c);
+            }
+        }
+        String arguments = parameter > 0 ? nulls.toString() : "";
+
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE filter_query AS " + numbered);
+                try {
+                    // The plan does not depend on the arguments, a generic plan is built without them
+                    StringJoiner lines = new StringJoiner("\n");
+                    try (ResultSet rs = statement.executeQuery("EXPLAIN EXECUTE filter_query" + arguments)) {
+                        while (rs.next()) {
+                            lines.add(rs.getString(1));
+                        }
+                    }
+                    return lines.toString();
+                } finally {
+                    statement.execute("DEALLOCATE filter_query");
+                    statement.execute("RESET plan_cache_mode");
+                }
+            }
+        });
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan of\n" + sql + "\n" + plan);
+        assertFalse(plan.contains("Seq Scan on transactions"), () -> "Unexpected sequential scan:\n" + plan);
+    }
+}
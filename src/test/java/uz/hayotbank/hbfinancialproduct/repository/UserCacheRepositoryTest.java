@@ -0,0 +1,128 @@
+package uz.hayotbank.hbfinancialproduct.repository;
+
+import uz.hayotbank.hbfinancialproduct.dto.UserCreateDto;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.security.UserDetailsServiceImpl;
+import uz.hayotbank.hbfinancialproduct.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: lookups run outside of a transaction like in JwtAuthenticationFilter.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class UserCacheRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+
+        testUser = userRepository.save(new User("cacheduser", "cached@example.com", "Cached User"));
+    }
+
+    @Test
+    void findByUsername_SecondLookupResolvesIdFromCache() {
+        assertTrue(userRepository.findByUsername("cacheduser").isPresent());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        User user = userRepository.findByUsername("cacheduser").orElseThrow();
+
+        assertEquals(testUser.getId(), user.getId());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        // Only the lookup by primary key, the entity itself is never cached
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void balanceChangedByAnotherInstance_IsSeenRightAway() {
+        User cached = userRepository.findByUsername("cacheduser").orElseThrow();
+        assertEquals(0, BigDecimal.ZERO.compareTo(cached.getBalance()));
+
+        // Another instance commits a transfer, this instance's cache knows nothing about it
+        jdbcTemplate.update("UPDATE users SET balance = 250.00, version = version + 1 WHERE id = ?", testUser.getId());
+
+        assertEquals(0, new BigDecimal("250.00").compareTo(userRepository.findByUsername("cacheduser").orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("250.00").compareTo(userService.getBalance(testUser.getId())));
+    }
+
+    @Test
+    void userRenamedByAnotherInstance_IsNotFoundThroughTheStaleMapping() {
+        assertTrue(userRepository.findByUsername("cacheduser").isPresent());
+
+        jdbcTemplate.update("UPDATE users SET username = 'renamedelsewhere' WHERE id = ?", testUser.getId());
+
+        assertTrue(userRepository.findByUsername("cacheduser").isEmpty());
+        assertEquals(testUser.getId(), userRepository.findByUsername("renamedelsewhere").orElseThrow().getId());
+    }
+
+    @Test
+    void passwordRehash_KeepsUsernameMappingsCached() {
+        userRepository.save(new User("otheruser", "other@example.com", "Other User"));
+        assertTrue(userRepository.findByUsername("cacheduser").isPresent());
+        assertTrue(userRepository.findByUsername("otheruser").isPresent());
+
+        userDetailsService.updatePassword(userDetailsService.loadUserByUsername("cacheduser"), "{bcrypt}rehashed");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals("{bcrypt}rehashed", userRepository.findByUsername("cacheduser").orElseThrow().getPassword());
+        assertTrue(userRepository.findByUsername("otheruser").isPresent());
+        assertEquals(2, statistics.getNaturalIdCacheHitCount());
+        assertEquals(0, statistics.getNaturalIdCacheMissCount());
+    }
+
+    @Test
+    void updateUser_RenamedUserIsNotFoundUnderOldUsername() {
+        assertTrue(userRepository.findByUsername("cacheduser").isPresent());
+
+        UserCreateDto update = new UserCreateDto();
+        update.setUsername("renameduser");
+        update.setEmail("cached@example.com");
+        update.setFullName("Renamed User");
+        update.setPassword("password123");
+        userService.updateUser(testUser.getId(), update);
+
+        assertTrue(userRepository.findByUsername("cacheduser").isEmpty());
+        assertEquals("Renamed User", userRepository.findByUsername("renameduser").orElseThrow().getFullName());
+    }
+}
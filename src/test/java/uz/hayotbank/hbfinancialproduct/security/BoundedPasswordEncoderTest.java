@@ -0,0 +1,69 @@
+package uz.hayotbank.hbfinancialproduct.security;
+
+import uz.hayotbank.hbfinancialproduct.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void matches_RejectsWhenPoolIsSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 0, 5000, meterRegistry);
+        try {
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> encoder.matches("a", "b"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("a", "b"));
+            assertEquals(1.0, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void passwordEncoder_UpgradesLegacyAndWeakerHashes() {
+        BoundedPasswordEncoder encoder =
+            (BoundedPasswordEncoder) new SecurityConfig(null).passwordEncoder(5, 1, 10, 5000, meterRegistry);
+        try {
+            String legacy = new BCryptPasswordEncoder(4).encode("secret");
+            String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+            String current = encoder.encode("secret");
+
+            assertTrue(current.startsWith("{bcrypt}$2a$05$"));
+            assertTrue(encoder.matches("secret", legacy));
+            assertTrue(encoder.matches("secret", weaker));
+            assertTrue(encoder.upgradeEncoding(legacy));
+            assertTrue(encoder.upgradeEncoding(weaker));
+            assertFalse(encoder.upgradeEncoding(current));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uz.hayotbank.hbfinancialproduct.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(3600000, 100);
+    private final JwtUtil jwtUtil = new JwtUtil(
+        "testSecretKeyForJWTTokenGenerationThatIsLongEnoughForSecurity123456789", 3600000, 604800000, 100);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_Stateless_AuthenticatesFromClaimsWithoutLookup() throws Exception {
+        String token = jwtUtil.generateJwtToken(7L, "testuser", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        Authentication authentication = filter(AuthMode.STATELESS, token);
+
+        assertNotNull(authentication);
+        assertEquals("testuser", authentication.getName());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(authentication.getAuthorities()));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_Stateless_RejectsRevokedUser() throws Exception {
+        String token = jwtUtil.generateJwtToken(7L, "testuser", List.of());
+        tokenRevocationList.revokeUser(7L);
+
+        assertNull(filter(AuthMode.STATELESS, token));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_Stateless_LooksUpTokenWithoutUserId() throws Exception {
+        String token = jwtUtil.generateRefreshToken("testuser");
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(new User("testuser", "", List.of()));
+
+        assertNotNull(filter(AuthMode.STATELESS, token));
+        verify(userDetailsService).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void doFilter_Lookup_LoadsUserOnEveryRequest() throws Exception {
+        String token = jwtUtil.generateJwtToken(7L, "testuser", List.of());
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(new User("testuser", "", List.of()));
+
+        assertNotNull(filter(AuthMode.LOOKUP, token));
+        verify(userDetailsService).loadUserByUsername("testuser");
+    }
+
+    private Authentication filter(AuthMode authMode, String token) throws Exception {
+        JwtAuthenticationFilter filter =
+            new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenRevocationList, authMode);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/7");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,39 @@
+package uz.hayotbank.hbfinancialproduct.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJWTTokenGenerationThatIsLongEnoughForSecurity123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3600000, 604800000, 100);
+
+    @Test
+    void getClaimsFromJwtToken_RepeatedTokenIsServedFromCache() {
+        String token = jwtUtil.generateJwtToken(7L, "testuser", List.of());
+
+        Claims first = jwtUtil.getClaimsFromJwtToken(token);
+        Claims second = jwtUtil.getClaimsFromJwtToken(token);
+
+        assertSame(first, second);
+        assertEquals("testuser", second.getSubject());
+        assertEquals(7L, second.get(JwtUtil.USER_ID_CLAIM, Long.class));
+    }
+
+    @Test
+    void getVerifiedClaims_RejectsTamperedAndForeignTokens() {
+        String token = jwtUtil.generateJwtToken(7L, "testuser", List.of());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        JwtUtil otherKey = new JwtUtil(SECRET.replace('t', 'x'), 3600000, 604800000, 100);
+
+        assertNotNull(jwtUtil.getVerifiedClaims(token));
+        assertNull(jwtUtil.getVerifiedClaims(tampered));
+        assertNull(jwtUtil.getVerifiedClaims(otherKey.generateJwtToken(7L, "testuser", List.of())));
+        assertFalse(jwtUtil.validateJwtToken("not-a-token"));
+    }
+}
@@ -0,0 +1,88 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.exception.AccountBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    @Test
+    void withAccountLock_SerializesSameAccount() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 5000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(() -> lockManager.withAccountLock(42L, () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                inside.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, maxInside.get());
+    }
+
+    @Test
+    void withAccountLocks_OppositeOrderDoesNotDeadlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1024, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> lockManager.withAccountLocks(
+                forward ? 1L : 2L, forward ? 2L : 1L, () -> null)));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void withAccountLocks_SameStripeIsLockedOnce() {
+        AccountLockManager lockManager = new AccountLockManager(1, 5000);
+
+        assertEquals("done", lockManager.withAccountLocks(1L, 2L, () -> "done"));
+    }
+
+    @Test
+    void withAccountLock_TimesOutWhenHeld() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> lockManager.withAccountLock(42L, () -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        held.await();
+
+        assertThrows(AccountBusyException.class, () -> lockManager.withAccountLock(42L, () -> null));
+
+        release.countDown();
+        holder.join();
+    }
+}
@@ -0,0 +1,174 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.repository.BalanceSnapshotRepository;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: the job only sees committed postings.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BalanceSnapshotJobTest {
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User account;
+    private User counterparty;
+
+    @BeforeEach
+    void setUp() {
+        balanceSnapshotRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        account = userRepository.save(new User("snapshot_account", "snapshot_account@example.com", "Snapshot Account"));
+        counterparty = userRepository.save(new User("snapshot_other", "snapshot_other@example.com", "Snapshot Other"));
+    }
+
+    @Test
+    void balanceAsOf_MatchesHistoryBeforeAndAfterSnapshots() throws InterruptedException {
+        LocalDateTime beforeAnything = LocalDateTime.now();
+        credit(account, "100.00");
+        LocalDateTime afterCredit = tick();
+        transactionService.transferMoney(new TransferDto(account.getId(), counterparty.getId(), new BigDecimal("30.00"), "Rent"));
+        LocalDateTime afterTransfer = tick();
+
+        balanceSnapshotJob.takeSnapshots();
+        assertEquals(2, balanceSnapshotRepository.count());
+
+        credit(account, "50.00");
+        LocalDateTime afterSecondCredit = tick();
+        balanceSnapshotJob.takeSnapshots();
+        // Only the account with new postings gets a new snapshot
+        assertEquals(3, balanceSnapshotRepository.count());
+
+        credit(account, "5.00");
+
+        assertBalance(account, beforeAnything, "0.00");
+        assertBalance(account, afterCredit, "100.00");
+        assertBalance(account, afterTransfer, "70.00");
+        assertBalance(account, afterSecondCredit, "120.00");
+        assertBalance(account, LocalDateTime.now(), "125.00");
+        assertBalance(counterparty, afterCredit, "0.00");
+        assertBalance(counterparty, LocalDateTime.now(), "30.00");
+    }
+
+    @Test
+    void postingCommittedAfterSnapshot_IsInTheNextSnapshot() throws SQLException {
+        credit(account, "100.00");
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO ledger_entries (transaction_id, account_id, amount) VALUES (?, ?, 7.00)")) {
+                statement.setLong(1, transactionId);
+                statement.setLong(2, account.getId());
+                statement.executeUpdate();
+            }
+
+            // The posting is stamped already but not committed: the snapshot must stop short of it
+            balanceSnapshotJob.takeSnapshots();
+            assertSnapshot(account, "100.00");
+
+            connection.commit();
+        }
+
+        balanceSnapshotJob.takeSnapshots();
+        assertSnapshot(account, "107.00");
+        assertTrue(balanceSnapshotRepository.findDrifted(List.of(account.getId())).isEmpty());
+        assertBalance(account, LocalDateTime.now(), "107.00");
+    }
+
+    @Test
+    void findDrifted_ReportsSnapshotThatMissedAPosting() {
+        credit(account, "100.00");
+        credit(counterparty, "20.00");
+        balanceSnapshotJob.takeSnapshots();
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+        LocalDateTime asOf = balanceSnapshotRepository.findLatestAsOf();
+
+        // A posting dated before the snapshot that the snapshot does not contain
+        jdbcTemplate.update("INSERT INTO ledger_entries (transaction_id, account_id, amount, created_at) VALUES (?, ?, 3.00, ?)",
+            transactionId, account.getId(), asOf.minusSeconds(1));
+
+        List<BalanceSnapshotRepository.SnapshotDrift> drifted =
+            balanceSnapshotRepository.findDrifted(List.of(account.getId(), counterparty.getId()));
+        assertEquals(1, drifted.size());
+        assertEquals(account.getId(), drifted.get(0).getAccountId());
+        assertEquals(asOf, drifted.get(0).getAsOf());
+        assertEquals(0, drifted.get(0).getSnapshotBalance().compareTo(new BigDecimal("100.00")));
+        assertEquals(0, drifted.get(0).getLedgerBalance().compareTo(new BigDecimal("103.00")));
+    }
+
+    private void assertSnapshot(User user, String expected) {
+        BigDecimal balance = balanceSnapshotRepository
+            .findFirstByUserIdAndAsOfLessThanEqualOrderByAsOfDesc(user.getId(), LocalDateTime.now().plusDays(1))
+            .orElseThrow()
+            .getBalance();
+        assertEquals(0, balance.compareTo(new BigDecimal(expected)), () -> "Latest snapshot was " + balance);
+    }
+
+    private void credit(User user, String amount) {
+        transactionService.createTransaction(new TransactionCreateDto(
+            user.getId(), new BigDecimal(amount), TransactionType.CREDIT, "Deposit"));
+    }
+
+    // Keeps postings on both sides of the returned point in time apart
+    private static LocalDateTime tick() throws InterruptedException {
+        Thread.sleep(5);
+        LocalDateTime now = LocalDateTime.now();
+        Thread.sleep(5);
+        return now;
+    }
+
+    private void assertBalance(User user, LocalDateTime asOf, String expected) {
+        BigDecimal balance = userService.balanceAsOf(user.getId(), asOf);
+        assertEquals(0, balance.compareTo(new BigDecimal(expected)), () -> "Balance as of " + asOf + " was " + balance);
+    }
+}
@@ -0,0 +1,142 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
+import uz.hayotbank.hbfinancialproduct.entity.IdempotencyKey;
+import uz.hayotbank.hbfinancialproduct.exception.IdempotencyKeyReuseException;
+import uz.hayotbank.hbfinancialproduct.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IdempotencyService idempotencyService;
+    private TransferDto transfer;
+    private AtomicInteger postings;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, objectMapper, 100, 60);
+        transfer = new TransferDto(1L, 2L, new BigDecimal("10.00"), "Rent");
+        postings = new AtomicInteger();
+    }
+
+    @Test
+    void execute_ReplayIsServedFromCacheAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            TransactionResponseDto first = idempotencyService.execute("key-1", "transfer", transfer,
+                record -> record.apply(post(7L)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(7L, first.getId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(idempotencyKeyRepository).insert(eq("key-1"), anyString(), eq(7L), anyString());
+
+        TransactionResponseDto replay = idempotencyService.execute("key-1", "transfer", transfer,
+            record -> record.apply(post(8L)));
+
+        assertEquals(7L, replay.getId());
+        assertEquals(1, postings.get());
+        // Only the miss before the first posting reached the table
+        verify(idempotencyKeyRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void execute_ReplayIsServedFromTableOnOtherInstance() {
+        storeOnOtherInstance("key-2", 7L);
+
+        TransactionResponseDto replay = idempotencyService.execute("key-2", "transfer", transfer,
+            record -> record.apply(post(8L)));
+
+        assertEquals(7L, replay.getId());
+        assertEquals(0, postings.get());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicateReturnsWinnersResponse() {
+        when(idempotencyKeyRepository.findById("key-3")).thenReturn(Optional.empty());
+
+        TransactionResponseDto response = idempotencyService.execute("key-3", "transfer", transfer, record -> {
+            // The other request committed the key while this one was posting
+            storeOnOtherInstance("key-3", 7L);
+            throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+        });
+
+        assertEquals(7L, response.getId());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequestIsRejected() {
+        storeOnOtherInstance("key-4", 7L);
+        TransferDto otherTransfer = new TransferDto(1L, 2L, new BigDecimal("99.00"), "Rent");
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.execute("key-4", "transfer",
+            otherTransfer, record -> record.apply(post(8L))));
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.execute("key-4", "create",
+            transfer, record -> record.apply(post(8L))));
+        assertEquals(0, postings.get());
+    }
+
+    @Test
+    void execute_WithoutKeyAlwaysPosts() {
+        idempotencyService.execute(null, "transfer", transfer, record -> record.apply(post(7L)));
+        idempotencyService.execute(null, "transfer", transfer, record -> record.apply(post(8L)));
+
+        assertEquals(2, postings.get());
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    private TransactionResponseDto post(Long transactionId) {
+        postings.incrementAndGet();
+        return response(transactionId);
+    }
+
+    private static TransactionResponseDto response(Long transactionId) {
+        TransactionResponseDto response = new TransactionResponseDto();
+        response.setId(transactionId);
+        return response;
+    }
+
+    // Posts the transfer through another instance sharing the table, then serves the inserted row from it
+    private void storeOnOtherInstance(String key, Long transactionId) {
+        IdempotencyService otherInstance = new IdempotencyService(idempotencyKeyRepository, objectMapper, 100, 60);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            otherInstance.execute(key, "transfer", transfer, record -> record.apply(response(transactionId)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<String> requestHash = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).insert(eq(key), requestHash.capture(), eq(transactionId), json.capture());
+
+        IdempotencyKey row = mock(IdempotencyKey.class);
+        when(row.getRequestHash()).thenReturn(requestHash.getValue());
+        when(row.getResponse()).thenReturn(json.getValue());
+        when(idempotencyKeyRepository.findById(key)).thenReturn(Optional.of(row));
+    }
+}
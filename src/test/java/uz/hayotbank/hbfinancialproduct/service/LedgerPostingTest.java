@@ -0,0 +1,88 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
+import uz.hayotbank.hbfinancialproduct.entity.LedgerEntry;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.exception.InsufficientBalanceException;
+import uz.hayotbank.hbfinancialproduct.repository.LedgerEntryRepository;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: the postings must be committed together with the transaction.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class LedgerPostingTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        sender = userRepository.save(new User("sender", "sender@example.com", "Sender"));
+        receiver = userRepository.save(new User("receiver", "receiver@example.com", "Receiver"));
+        transactionService.createTransaction(new TransactionCreateDto(
+            sender.getId(), new BigDecimal("100.00"), TransactionType.CREDIT, "Initial deposit"));
+    }
+
+    @Test
+    void transfer_PostsToBothAccounts() {
+        TransactionResponseDto transfer = transactionService.transferMoney(
+            new TransferDto(sender.getId(), receiver.getId(), new BigDecimal("30.00"), "Rent"));
+
+        List<LedgerEntry> postings = ledgerEntryRepository.findAll().stream()
+            .filter(entry -> entry.getTransaction().getId().equals(transfer.getId()))
+            .toList();
+        assertEquals(2, postings.size());
+        assertEquals(0, postings.stream().map(LedgerEntry::getAmount)
+            .reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(BigDecimal.ZERO));
+
+        assertEquals(0, userService.calculateBalance(sender.getId()).compareTo(new BigDecimal("70.00")));
+        assertEquals(0, userService.calculateBalance(receiver.getId()).compareTo(new BigDecimal("30.00")));
+    }
+
+    @Test
+    void rejectedDebit_PostsNothing() {
+        long postingsBefore = ledgerEntryRepository.count();
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.createTransaction(
+            new TransactionCreateDto(sender.getId(), new BigDecimal("500.00"), TransactionType.DEBIT, "Overdraft")));
+
+        assertEquals(postingsBefore, ledgerEntryRepository.count());
+        assertEquals(0, userService.calculateBalance(sender.getId()).compareTo(userService.getBalance(sender.getId())));
+    }
+}
@@ -0,0 +1,84 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new OptimisticRetryExecutor(meterRegistry);
+        ReflectionTestUtils.setField(retryExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryExecutor, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(retryExecutor, "maxBackoffMs", 2L);
+    }
+
+    @Test
+    void execute_RetriesConflictUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryExecutor.execute("transfer", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(User.class, 7L);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.get("ledger.optimistic.retries")
+            .tag("operation", "transfer").counter().count());
+        // One series per operation, whichever accounts conflicted
+        assertEquals(1, meterRegistry.find("ledger.optimistic.retries").counters().size());
+    }
+
+    @Test
+    void conflictingAccountId_IsTakenFromTheFailedVersionCheck() {
+        // A transfer from account 3 that lost the version check on the receiving account 9
+        RuntimeException conflict = new IllegalStateException("Commit failed",
+            new ObjectOptimisticLockingFailureException(User.class, 9L));
+
+        assertEquals(9L, OptimisticRetryExecutor.conflictingAccountId(conflict));
+        assertEquals("unknown", OptimisticRetryExecutor.conflictingAccountId(new IllegalStateException()));
+    }
+
+    @Test
+    void execute_GivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () ->
+            retryExecutor.execute("create", () -> {
+                calls.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException(User.class, 7L);
+            }));
+
+        assertEquals(3, calls.get());
+        assertEquals(1.0, meterRegistry.get("ledger.optimistic.exhausted")
+            .tag("operation", "create").counter().count());
+    }
+
+    @Test
+    void execute_DoesNotRetryOtherFailures() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () ->
+            retryExecutor.execute("create", () -> {
+                calls.incrementAndGet();
+                throw new IllegalArgumentException("Transaction already processed");
+            }));
+
+        assertEquals(1, calls.get());
+    }
+}
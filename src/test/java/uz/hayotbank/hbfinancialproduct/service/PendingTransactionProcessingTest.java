@@ -0,0 +1,111 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: the PENDING rows must be committed before they can be claimed.
+ * The scheduled processor is replaced by a mock: its first poll runs right after startup and would race
+ * the test for the PENDING rows, the test drains the queue itself.
+ */
+@SpringBootTest(properties = {
+    "application.transactions.processing-mode=ASYNC",
+    "application.transactions.async.max-attempts=3",
+    "application.transactions.async.retry-backoff-ms=0"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class PendingTransactionProcessingTest {
+
+    @MockitoBean
+    private PendingTransactionProcessor pendingTransactionProcessor;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testUser = new User("testuser", "test@example.com", "Test User");
+        testUser.setBalance(new BigDecimal("100.00"));
+        testUser = userRepository.save(testUser);
+    }
+
+    @Test
+    void submittedTransactions_AreAppliedByBatchProcessing() {
+        TransactionResponseDto debit = transactionService.submitTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("60.00"), TransactionType.DEBIT, "First debit"));
+        TransactionResponseDto overdraft = transactionService.submitTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("60.00"), TransactionType.DEBIT, "Second debit"));
+
+        assertEquals(TransactionStatus.PENDING, debit.getStatus());
+        assertEquals(0, userRepository.findById(testUser.getId()).orElseThrow()
+            .getBalance().compareTo(new BigDecimal("100.00")));
+
+        assertEquals(2, transactionService.processPendingBatch(10));
+        assertEquals(0, transactionService.processPendingBatch(10));
+
+        assertEquals(TransactionStatus.COMPLETED,
+            transactionService.getTransactionById(debit.getId()).orElseThrow().getStatus());
+        assertEquals(TransactionStatus.FAILED,
+            transactionService.getTransactionById(overdraft.getId()).orElseThrow().getStatus());
+        assertEquals(0, userRepository.findById(testUser.getId()).orElseThrow()
+            .getBalance().compareTo(new BigDecimal("40.00")));
+    }
+
+    @Test
+    void transactionThatBreaksItsBatch_IsRetriedAloneAndFailedAfterMaxAttempts() {
+        TransactionResponseDto debit = transactionService.submitTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("10.00"), TransactionType.DEBIT, "Debit"));
+        // Passes validation, but the resulting balance overflows DECIMAL(15,2) when the batch is flushed
+        TransactionResponseDto poison = transactionService.submitTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("9999999999999.99"), TransactionType.CREDIT, "Overflowing credit"));
+        TransactionResponseDto credit = transactionService.submitTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("5.00"), TransactionType.CREDIT, "Credit"));
+
+        // The whole batch fails once, then the other two are applied on their own
+        assertEquals(3, transactionService.processPendingBatch(10));
+        assertEquals(TransactionStatus.COMPLETED,
+            transactionService.getTransactionById(debit.getId()).orElseThrow().getStatus());
+        assertEquals(TransactionStatus.COMPLETED,
+            transactionService.getTransactionById(credit.getId()).orElseThrow().getStatus());
+        assertEquals(TransactionStatus.PENDING,
+            transactionService.getTransactionById(poison.getId()).orElseThrow().getStatus());
+
+        assertEquals(1, transactionService.processPendingBatch(10));
+        assertEquals(1, transactionService.processPendingBatch(10));
+        assertEquals(0, transactionService.processPendingBatch(10));
+
+        assertEquals(TransactionStatus.FAILED,
+            transactionService.getTransactionById(poison.getId()).orElseThrow().getStatus());
+        assertEquals(3, transactionRepository.findById(poison.getId()).orElseThrow().getProcessingAttempts());
+        assertEquals(0, userRepository.findById(testUser.getId()).orElseThrow()
+            .getBalance().compareTo(new BigDecimal("95.00")));
+    }
+}
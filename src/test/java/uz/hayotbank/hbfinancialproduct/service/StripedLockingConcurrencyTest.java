@@ -0,0 +1,11 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The same concurrent mutations with the STRIPED strategy: accounts are serialized by the
+ * in-process locks and protected by the version check instead of row locks.
+ */
+@SpringBootTest(properties = "application.ledger.locking-strategy=STRIPED")
+class StripedLockingConcurrencyTest extends TransactionServiceConcurrencyTest {
+}
@@ -0,0 +1,92 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionExportService transactionExportService;
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2025, 9, 22, 4, 0);
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionExportService = new TransactionExportService(
+            transactionRepository, userService, transactionManager, objectMapper);
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndEscapesFields() throws Exception {
+        when(transactionRepository.streamForExport(1L, null, null)).thenReturn(Stream.of(
+            row(10L, "Salary", TransactionType.CREDIT),
+            row(11L, "Rent, \"March\"", TransactionType.DEBIT)));
+
+        String csv = export(TransactionExportService.Format.CSV);
+
+        assertEquals("id,userId,userName,toUserId,toUserName,amount,type,description,status,createdAt,processedAt\n" +
+            "10,1,John Doe,,,100.00,CREDIT,Salary,COMPLETED,2025-09-22T04:00,2025-09-22T04:00\n" +
+            "11,1,John Doe,,,100.00,DEBIT,\"Rent, \"\"March\"\"\",COMPLETED,2025-09-22T04:00,2025-09-22T04:00\n", csv);
+    }
+
+    @Test
+    void export_Ndjson_WritesOneObjectPerLine() throws Exception {
+        when(transactionRepository.streamForExport(1L, null, null)).thenReturn(Stream.of(
+            row(10L, "Salary", TransactionType.CREDIT),
+            row(11L, "Card payment", TransactionType.DEBIT)));
+
+        String[] lines = export(TransactionExportService.Format.NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":10,"));
+        assertTrue(lines[1].contains("\"description\":\"Card payment\""));
+    }
+
+    @Test
+    void formatOf_RejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionExportService.Format.of("xlsx"));
+    }
+
+    private String export(TransactionExportService.Format format) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transactionExportService.export(1L, null, null, format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private TransactionResponseDto row(Long id, String description, TransactionType type) {
+        return new TransactionResponseDto(id, 1L, "John Doe", null, null, new BigDecimal("100.00"), type,
+            description, TransactionStatus.COMPLETED, createdAt, createdAt);
+    }
+}
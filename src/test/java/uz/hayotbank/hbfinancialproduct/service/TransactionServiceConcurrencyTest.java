@@ -0,0 +1,177 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransferDto;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.exception.InsufficientBalanceException;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires concurrent balance mutations at the same accounts. Not transactional on purpose:
+ * every operation must commit on its own for the row locks to be exercised.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class TransactionServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDebits_NeverOverdrawAccount() throws Exception {
+        User account = createUser("debit_target", "500.00");
+        int attempts = 2000;
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(attempts, i -> {
+            try {
+                transactionService.createTransaction(new TransactionCreateDto(
+                    account.getId(), new BigDecimal("1.00"), TransactionType.DEBIT, "Concurrent debit " + i));
+                completed.incrementAndGet();
+            } catch (InsufficientBalanceException e) {
+                rejected.incrementAndGet();
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(500, completed.get());
+        assertEquals(attempts - 500, rejected.get());
+
+        BigDecimal storedBalance = userService.getBalance(account.getId());
+        assertEquals(0, storedBalance.compareTo(BigDecimal.ZERO));
+        assertEquals(0, storedBalance.compareTo(userService.calculateBalance(account.getId())));
+    }
+
+    @Test
+    void concurrentOppositeTransfers_DoNotDeadlockAndConserveMoney() throws Exception {
+        User first = createUser("transfer_first", "1000.00");
+        User second = createUser("transfer_second", "1000.00");
+        int attempts = 2000;
+
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(attempts, i -> {
+            boolean forward = i % 2 == 0;
+            try {
+                transactionService.transferMoney(new TransferDto(
+                    forward ? first.getId() : second.getId(),
+                    forward ? second.getId() : first.getId(),
+                    new BigDecimal("1.00"), "Concurrent transfer " + i));
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+
+        BigDecimal firstBalance = userService.getBalance(first.getId());
+        BigDecimal secondBalance = userService.getBalance(second.getId());
+        assertEquals(0, firstBalance.compareTo(new BigDecimal("1000.00")));
+        assertEquals(0, secondBalance.compareTo(new BigDecimal("1000.00")));
+        assertEquals(0, firstBalance.compareTo(userService.calculateBalance(first.getId())));
+        assertEquals(0, secondBalance.compareTo(userService.calculateBalance(second.getId())));
+    }
+
+    @Test
+    void concurrentRetriesWithSameIdempotencyKey_PostOnce() throws Exception {
+        User first = createUser("retry_first", "100.00");
+        User second = createUser("retry_second", "1.00");
+        TransferDto transfer = new TransferDto(first.getId(), second.getId(), new BigDecimal("10.00"), "Retried transfer");
+
+        Set<Long> transactionIds = ConcurrentHashMap.newKeySet();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(200, i -> {
+            try {
+                transactionIds.add(transactionService.transferMoney(transfer, "transfer-retry-key").getId());
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(1, transactionIds.size());
+        assertEquals(0, userService.getBalance(first.getId()).compareTo(new BigDecimal("90.00")));
+        assertEquals(0, userService.getBalance(second.getId()).compareTo(new BigDecimal("11.00")));
+    }
+
+    private User createUser(String username, String initialBalance) {
+        User user = userRepository.save(new User(username, username + "@example.com", username));
+
+        // Fund the account through a completed CREDIT so the ledger agrees with the stored balance
+        transactionService.createTransaction(new TransactionCreateDto(
+            user.getId(), new BigDecimal(initialBalance), TransactionType.CREDIT, "Initial deposit"));
+        return user;
+    }
+
+    private void runConcurrently(int attempts, IntTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        void run(int index);
+    }
+}
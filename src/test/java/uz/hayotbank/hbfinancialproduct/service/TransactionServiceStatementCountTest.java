@@ -0,0 +1,113 @@
+package uz.hayotbank.hbfinancialproduct.service;
+
+import uz.hayotbank.hbfinancialproduct.dto.TransactionCreateDto;
+import uz.hayotbank.hbfinancialproduct.dto.TransactionResponseDto;
+import uz.hayotbank.hbfinancialproduct.entity.Transaction;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
+import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.User;
+import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts JDBC statements using Hibernate statistics.
+ * Not transactional, so the balance update is really flushed and counted.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers
+@ActiveProfiles("test")
+class TransactionServiceStatementCountTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testUser = new User("testuser", "test@example.com", "Test User");
+        testUser.setBalance(new BigDecimal("1000.00"));
+        testUser = userRepository.save(testUser);
+    }
+
+    @Test
+    void createTransaction_DebitUsesAtMostFourStatements() {
+        // Allocate blocks of transaction and ledger entry ids first; the next 49 inserts need no sequence call
+        transactionService.createTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("1.00"), TransactionType.CREDIT, "Warm up id block"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        TransactionResponseDto result = transactionService.createTransaction(new TransactionCreateDto(
+            testUser.getId(), new BigDecimal("200.00"), TransactionType.DEBIT, "Statement count debit"));
+
+        // SELECT ... FOR UPDATE on the user, INSERT of the transaction and of its posting, UPDATE of the balance
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+            () -> "Expected at most 4 statements but was " + statistics.getPrepareStatementCount());
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals("Test User", result.getUserName());
+        assertEquals(0, userRepository.findById(testUser.getId()).orElseThrow()
+            .getBalance().compareTo(new BigDecimal("801.00")));
+    }
+
+    @Test
+    void getTransactionsByUserId_PageIsOneQuery() {
+        User recipient = userRepository.save(new User("recipient", "recipient@example.com", "Recipient User"));
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Transaction transaction = new Transaction(testUser, new BigDecimal("1.00"),
+                i % 2 == 0 ? TransactionType.CREDIT : TransactionType.TRANSFER, "Page row " + i);
+            if (transaction.getType() == TransactionType.TRANSFER) {
+                transaction.setToUser(recipient);
+            }
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<TransactionResponseDto> page = transactionService.getTransactionsByUserId(testUser.getId(),
+            PageRequest.of(0, 100, Sort.by("createdAt").descending()), false);
+
+        // User names come from the join in the same SELECT: no per-row user loads, no COUNT
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(100, page.getNumberOfElements());
+        assertTrue(page.getContent().stream().allMatch(row -> "Test User".equals(row.getUserName())));
+        assertTrue(page.getContent().stream()
+            .filter(row -> row.getType() == TransactionType.TRANSFER)
+            .allMatch(row -> "Recipient User".equals(row.getToUserName())));
+    }
+}
@@ -2,23 +2,29 @@ package uz.hayotbank.hbfinancialproduct.service;
 
 import uz.hayotbank.hbfinancialproduct.dto.UserCreateDto;
 import uz.hayotbank.hbfinancialproduct.dto.UserResponseDto;
-import uz.hayotbank.hbfinancialproduct.entity.Transaction;
-import uz.hayotbank.hbfinancialproduct.entity.TransactionStatus;
-import uz.hayotbank.hbfinancialproduct.entity.TransactionType;
+import uz.hayotbank.hbfinancialproduct.entity.BalanceSnapshot;
 import uz.hayotbank.hbfinancialproduct.entity.User;
 import uz.hayotbank.hbfinancialproduct.exception.UserNotFoundException;
-import uz.hayotbank.hbfinancialproduct.repository.TransactionRepository;
+import uz.hayotbank.hbfinancialproduct.repository.BalanceSnapshotRepository;
+import uz.hayotbank.hbfinancialproduct.repository.LedgerEntryRepository;
 import uz.hayotbank.hbfinancialproduct.repository.UserRepository;
+import uz.hayotbank.hbfinancialproduct.security.TokenRevocationList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,7 +38,13 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
 
     @InjectMocks
     private UserService userService;
@@ -61,8 +73,6 @@ class UserServiceTest {
         when(userRepository.existsByUsername(userCreateDto.getUsername())).thenReturn(false);
         when(userRepository.existsByEmail(userCreateDto.getEmail())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(transactionRepository.findByUserIdAndStatus(1L, TransactionStatus.COMPLETED))
-                .thenReturn(Arrays.asList());
 
         UserResponseDto result = userService.createUser(userCreateDto);
 
@@ -97,15 +107,16 @@ class UserServiceTest {
 
     @Test
     void getUserById_Success() {
+        testUser.setBalance(new BigDecimal("250.00"));
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(transactionRepository.findByUserIdAndStatus(1L, TransactionStatus.COMPLETED))
-                .thenReturn(Arrays.asList());
 
         Optional<UserResponseDto> result = userService.getUserById(1L);
 
         assertTrue(result.isPresent());
         assertEquals(testUser.getId(), result.get().getId());
         assertEquals(testUser.getUsername(), result.get().getUsername());
+        assertEquals(new BigDecimal("250.00"), result.get().getBalance());
+        verifyNoInteractions(ledgerEntryRepository);
     }
 
     @Test
@@ -119,17 +130,7 @@ class UserServiceTest {
 
     @Test
     void calculateBalance_Success() {
-        Transaction creditTransaction = new Transaction();
-        creditTransaction.setAmount(new BigDecimal("1000.00"));
-        creditTransaction.setType(TransactionType.CREDIT);
-
-        Transaction debitTransaction = new Transaction();
-        debitTransaction.setAmount(new BigDecimal("300.00"));
-        debitTransaction.setType(TransactionType.DEBIT);
-
-        List<Transaction> transactions = Arrays.asList(creditTransaction, debitTransaction);
-        when(transactionRepository.findByUserIdAndStatus(1L, TransactionStatus.COMPLETED))
-                .thenReturn(transactions);
+        when(ledgerEntryRepository.sumByAccountId(1L)).thenReturn(new BigDecimal("700.00"));
 
         BigDecimal balance = userService.calculateBalance(1L);
 
@@ -138,14 +139,54 @@ class UserServiceTest {
 
     @Test
     void calculateBalance_NoTransactions() {
-        when(transactionRepository.findByUserIdAndStatus(1L, TransactionStatus.COMPLETED))
-                .thenReturn(Arrays.asList());
+        when(ledgerEntryRepository.sumByAccountId(1L)).thenReturn(BigDecimal.ZERO);
 
         BigDecimal balance = userService.calculateBalance(1L);
 
         assertEquals(BigDecimal.ZERO, balance);
     }
 
+    @Test
+    void calculateBalances_FillsMissingUsersWithZero() {
+        LedgerEntryRepository.AccountBalance accountBalance = mock(LedgerEntryRepository.AccountBalance.class);
+        when(accountBalance.getAccountId()).thenReturn(1L);
+        when(accountBalance.getBalance()).thenReturn(new BigDecimal("700.00"));
+        when(ledgerEntryRepository.sumByAccountIds(List.of(1L, 2L))).thenReturn(List.of(accountBalance));
+
+        Map<Long, BigDecimal> balances = userService.calculateBalances(List.of(1L, 2L));
+
+        assertEquals(2, balances.size());
+        assertEquals(new BigDecimal("700.00"), balances.get(1L));
+        assertEquals(BigDecimal.ZERO, balances.get(2L));
+    }
+
+    @Test
+    void balanceAsOf_StartsFromNearestSnapshot() {
+        LocalDateTime snapshotAt = LocalDateTime.of(2025, 6, 1, 0, 0);
+        LocalDateTime asOf = LocalDateTime.of(2025, 6, 1, 13, 30);
+        BalanceSnapshot snapshot = mock(BalanceSnapshot.class);
+        when(snapshot.getAsOf()).thenReturn(snapshotAt);
+        when(snapshot.getBalance()).thenReturn(new BigDecimal("500.00"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(balanceSnapshotRepository.findFirstByUserIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+            .thenReturn(Optional.of(snapshot));
+        when(ledgerEntryRepository.sumByAccountIdBetween(1L, snapshotAt, asOf)).thenReturn(new BigDecimal("-120.00"));
+
+        assertEquals(new BigDecimal("380.00"), userService.balanceAsOf(1L, asOf));
+        verify(ledgerEntryRepository, never()).sumByAccountIdUntil(any(), any());
+    }
+
+    @Test
+    void balanceAsOf_WithoutSnapshotSumsHistory() {
+        LocalDateTime asOf = LocalDateTime.of(2025, 6, 1, 13, 30);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(balanceSnapshotRepository.findFirstByUserIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+            .thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumByAccountIdUntil(1L, asOf)).thenReturn(new BigDecimal("75.00"));
+
+        assertEquals(new BigDecimal("75.00"), userService.balanceAsOf(1L, asOf));
+    }
+
     @Test
     void findEntityById_Success() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
@@ -172,6 +213,7 @@ class UserServiceTest {
         userService.deleteUser(1L);
 
         verify(userRepository).deleteById(1L);
+        verify(tokenRevocationList).revokeUser(1L);
     }
 
     @Test
@@ -184,4 +226,29 @@ class UserServiceTest {
 
         verify(userRepository, never()).deleteById(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllUsers_WithoutTotal_SkipsCountQuery() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(List.of(testUser), pageable, true));
+
+        Slice<UserResponseDto> users = userService.getAllUsers(pageable, PageTotal.NONE);
+
+        assertFalse(users instanceof Page);
+        assertTrue(users.hasNext());
+        assertEquals("testuser", users.getContent().get(0).getUsername());
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void getAllUsers_ApproximateTotal_UsesPlannerEstimate() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(List.of(testUser), pageable, true));
+        when(userRepository.estimateRowCount()).thenReturn(5000L);
+
+        Page<UserResponseDto> users = (Page<UserResponseDto>) userService.getAllUsers(pageable, PageTotal.APPROXIMATE);
+
+        assertEquals(5000L, users.getTotalElements());
+        verify(userRepository, never()).count();
+    }
+}
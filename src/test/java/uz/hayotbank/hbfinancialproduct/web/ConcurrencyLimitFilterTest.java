@@ -0,0 +1,77 @@
+package uz.hayotbank.hbfinancialproduct.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_PassesRequestWithinLimit() throws Exception {
+        ConcurrencyLimitFilter filter = filter(1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals(0.0, meterRegistry.get("http.server.requests.in.flight").gauge().value());
+    }
+
+    @Test
+    void doFilter_RejectsRequestOverLimit() throws Exception {
+        ConcurrencyLimitFilter filter = filter(0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/transactions/transfer"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("Server is busy"));
+        assertEquals(1.0, meterRegistry.get("http.server.requests.rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_HoldsPermitUntilAsyncResponseCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = filter(1);
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/transactions/user/1/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        assertEquals(1.0, meterRegistry.get("http.server.requests.in.flight").gauge().value());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertEquals(0.0, meterRegistry.get("http.server.requests.in.flight").gauge().value());
+    }
+
+    @Test
+    void doFilter_IgnoresNonApiPaths() throws Exception {
+        ConcurrencyLimitFilter filter = filter(0);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    private ConcurrencyLimitFilter filter(int maxConcurrentRequests) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new ConcurrencyLimitFilter(maxConcurrentRequests, 0, objectMapper, meterRegistry);
+    }
+}